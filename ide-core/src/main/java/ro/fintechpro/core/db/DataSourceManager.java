@@ -3,25 +3,48 @@ package ro.fintechpro.core.db;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
 import ro.fintechpro.core.model.ConnectionProfile;
 import ro.fintechpro.core.service.ConfigService;
 
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class DataSourceManager {
 
     private static final DataSourceManager INSTANCE = new DataSourceManager();
 
+    // Connections per profile pool
+    public static final int MAX_POOL_SIZE = 5;
+
     // Store definitions
     private final Map<String, ConnectionProfile> profiles = new ConcurrentHashMap<>();
 
-    // Store active connection pools (Lazy loaded)
-    private final Map<String, HikariDataSource> dataSources = new ConcurrentHashMap<>();
+    // Store active connection pools (Lazy loaded), with the profile each was built from
+    private record Pool(ConnectionProfile profile, CompletableFuture<HikariDataSource> dataSource) {
+        boolean isUsableFor(ConnectionProfile p) {
+            if (profile != p) return false;
+            if (!dataSource.isDone()) return true; // Still starting: usable once it is up
+            return !dataSource.isCompletedExceptionally() && !dataSource.join().isClosed();
+        }
+
+        void close() {
+            dataSource.thenAccept(ds -> {
+                if (!ds.isClosed()) ds.close();
+            });
+        }
+    }
+    private final Map<String, Pool> dataSources = new ConcurrentHashMap<>();
 
     // The currently active profile name (for legacy/global access)
     private String activeProfileName;
@@ -69,9 +92,9 @@ public class DataSourceManager {
         persistProfiles();
 
         // Close pool if open
-        HikariDataSource ds = dataSources.remove(name);
-        if (ds != null && !ds.isClosed()) {
-            ds.close();
+        Pool pool = dataSources.remove(name);
+        if (pool != null) {
+            pool.close();
         }
 
         if (name.equals(activeProfileName)) {
@@ -113,44 +136,153 @@ public class DataSourceManager {
         return ds.getConnection();
     }
 
-    private synchronized HikariDataSource getOrInitDataSource(String profileName) throws SQLException {
-        if (!profiles.containsKey(profileName)) {
+    // Per-profile: initializing (or waiting on) one pool never blocks consoles bound to another
+    private HikariDataSource getOrInitDataSource(String profileName) throws SQLException {
+        ConnectionProfile p = profiles.get(profileName);
+        if (p == null) {
             throw new SQLException("Profile not found: " + profileName);
         }
 
-        // Return existing if open
-        HikariDataSource existing = dataSources.get(profileName);
-        if (existing != null && !existing.isClosed()) {
-            return existing;
+        // 1. Fast path: a plain lookup
+        Pool pool = dataSources.get(profileName);
+        if (pool == null || !pool.isUsableFor(p)) {
+            // 2. Swap in a placeholder unless another thread got there first. Only that is done under the
+            //    map's lock; the pool is started outside it, so lookups of other profiles never wait on it
+            Pool stale = pool;
+            Pool fresh = new Pool(p, new CompletableFuture<>());
+            pool = dataSources.compute(profileName, (name, existing) -> existing == null || existing == stale ? fresh : existing);
+            if (pool == fresh) {
+                if (stale != null) stale.close(); // Closed, or built from an older version of the profile
+                try {
+                    fresh.dataSource().complete(createDataSource(profileName, p));
+                } catch (RuntimeException e) {
+                    dataSources.remove(profileName, fresh); // The next call tries again
+                    fresh.dataSource().completeExceptionally(e);
+                }
+            }
         }
 
-        // Create new pool
-        ConnectionProfile p = profiles.get(profileName);
         try {
-            HikariConfig config = new HikariConfig();
-            config.setJdbcUrl(String.format("jdbc:postgresql://%s:%d/%s", p.getHost(), p.getPort(), p.getDatabase()));
-            config.setUsername(p.getUsername());
-            config.setPassword(p.getPassword());
-
-            // Optional: Set pool name for debugging
-            config.setPoolName("HikariPool-" + profileName);
-
-            if (p.isUseSsl()) {
-                config.addDataSourceProperty("ssl", "true");
-                config.addDataSourceProperty("sslmode", "require");
-                config.addDataSourceProperty("sslfactory", "org.postgresql.ssl.NonValidatingFactory");
+            return pool.dataSource().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new SQLException("Failed to initialize pool for profile " + profileName + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Opens a connection outside the pool, for callers that hold it for a long time
+     * (pinned console sessions) and must not starve the pool.
+     */
+    public Connection openDedicatedConnection(String profileName) throws SQLException {
+        ConnectionProfile p = profiles.get(profileName);
+        if (p == null) {
+            throw new SQLException("Profile not found: " + profileName);
+        }
+
+        Properties props = new Properties();
+        props.setProperty("user", p.getUsername());
+        if (p.getPassword() != null) props.setProperty("password", p.getPassword());
+        props.setProperty("ApplicationName", "PgDeveloper session");
+        if (p.isUseSsl()) {
+            props.setProperty("ssl", "true");
+            props.setProperty("sslmode", "require");
+            props.setProperty("sslfactory", "org.postgresql.ssl.NonValidatingFactory");
+        }
+        props.setProperty("connectTimeout", "5");
+        return DriverManager.getConnection(jdbcUrl(p), props);
+    }
+
+    /**
+     * Background LISTEN on a dedicated connection (see {@link #listen}).
+     */
+    public static final class NotificationListener {
+        private volatile boolean stopped;
+        private volatile Connection connection;
+
+        public boolean isStopped() { return stopped; }
+
+        public void stop() {
+            stopped = true;
+            Connection c = connection;
+            if (c != null) {
+                try {
+                    c.close(); // Wakes the blocked poll
+                } catch (SQLException ignored) {
+                }
             }
+        }
+    }
 
-            config.setConnectionTimeout(5000);
-            config.setMaximumPoolSize(5);
+    private static final int LISTEN_POLL_MILLIS = 10_000;
+    private static final long LISTEN_RECONNECT_MILLIS = 5_000;
 
-            HikariDataSource newDs = new HikariDataSource(config);
-            dataSources.put(profileName, newDs);
-            return newDs;
+    /**
+     * Subscribes to a NOTIFY channel of the profile. Payloads are delivered on a background
+     * (virtual) thread; a dropped connection is re-established until the listener is stopped.
+     */
+    public NotificationListener listen(String profileName, String channel, Consumer<String> onPayload) {
+        NotificationListener listener = new NotificationListener();
+        Thread.ofVirtual().name("listen-" + channel).start(() -> {
+            while (!listener.stopped) {
+                try (Connection conn = openDedicatedConnection(profileName);
+                     Statement stmt = conn.createStatement()) {
+                    listener.connection = conn;
+                    stmt.execute("LISTEN \"" + channel.replace("\"", "\"\"") + "\"");
+                    PGConnection pg = conn.unwrap(PGConnection.class);
+                    while (!listener.stopped) {
+                        PGNotification[] notifications = pg.getNotifications(LISTEN_POLL_MILLIS);
+                        if (notifications == null) continue;
+                        for (PGNotification n : notifications) {
+                            onPayload.accept(n.getParameter());
+                        }
+                    }
+                } catch (SQLException e) {
+                    if (listener.stopped) break;
+                    e.printStackTrace();
+                    try {
+                        Thread.sleep(LISTEN_RECONNECT_MILLIS);
+                    } catch (InterruptedException ie) {
+                        break;
+                    }
+                } finally {
+                    listener.connection = null;
+                }
+            }
+        });
+        return listener;
+    }
 
-        } catch (Exception e) {
-            throw new SQLException("Failed to initialize pool for profile " + profileName + ": " + e.getMessage(), e);
+    private static String jdbcUrl(ConnectionProfile p) {
+        return String.format("jdbc:postgresql://%s:%d/%s", p.getHost(), p.getPort(), p.getDatabase());
+    }
+
+    /**
+     * Upper bound for work that fans out over one profile's pool.
+     */
+    public int getMaxPoolSize() {
+        return MAX_POOL_SIZE;
+    }
+
+    private HikariDataSource createDataSource(String profileName, ConnectionProfile p) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(jdbcUrl(p));
+        config.setUsername(p.getUsername());
+        config.setPassword(p.getPassword());
+
+        // Optional: Set pool name for debugging
+        config.setPoolName("HikariPool-" + profileName);
+
+        if (p.isUseSsl()) {
+            config.addDataSourceProperty("ssl", "true");
+            config.addDataSourceProperty("sslmode", "require");
+            config.addDataSourceProperty("sslfactory", "org.postgresql.ssl.NonValidatingFactory");
         }
+
+        config.setConnectionTimeout(5000);
+        config.setMaximumPoolSize(MAX_POOL_SIZE);
+
+        return new HikariDataSource(config);
     }
 
     // --- Utilities ---
@@ -12,7 +12,8 @@ public record DatabaseCache(
             String name,
             List<TableCache> tables,
             List<String> functions,
-            List<String> procedures
+            List<String> procedures,
+            String fingerprint // Server-side hash of the schema's catalog rows; null if not known
     ) {}
 
     public record TableCache(String name, String type) {}
@@ -1,14 +1,26 @@
 package ro.fintechpro.core.model;
 
-public record SidebarItem(String label, String type, String schema, String name) {
+/**
+ * @param child for an object inside a relation (a column, index or constraint found by search): its
+ *              name, with {@code type} its kind and {@code name} the relation; null otherwise
+ */
+public record SidebarItem(String label, String type, String schema, String name, String child) {
     // Types
     public static final String TYPE_SCHEMA = "SCHEMA";
     public static final String TYPE_TABLE = "TABLE";
+    public static final String TYPE_VIEW = "VIEW";
+    public static final String TYPE_COLUMN = "COLUMN";
+    public static final String TYPE_INDEX = "INDEX";
+    public static final String TYPE_CONSTRAINT = "CONSTRAINT";
     public static final String TYPE_FUNCTION = "FUNCTION";
     public static final String TYPE_PROCEDURE = "PROCEDURE";
     public static final String TYPE_ROOT = "ROOT";
     public static final String TYPE_FOLDER = "FOLDER";
 
+    public SidebarItem(String label, String type, String schema, String name) {
+        this(label, type, schema, name, null);
+    }
+
     @Override
     public String toString() {
         return label;
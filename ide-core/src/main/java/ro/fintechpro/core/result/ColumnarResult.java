@@ -0,0 +1,569 @@
+package ro.fintechpro.core.result;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented storage for a query result.
+ * Each column picks its representation from the JDBC type: primitive vectors with a null bitmap
+ * for numbers and booleans, dictionary-encoded strings for text, byte slices for bytea and
+ * plain object references for everything else.
+ *
+ * One thread appends, any thread reads. Rows below {@link #getRowCount()} are safe to read
+ * while appending continues (the row count is published after the values are written).
+ *
+ * With a {@link ResultSpillStore} attached, rows past the store's memory budget go to a
+ * {@link SpillFile} instead; {@link #getValue} reads them back transparently.
+ */
+public class ColumnarResult {
+
+    public enum Kind { INT, LONG, DOUBLE, BOOLEAN, TEXT, BYTES, OBJECT }
+
+    /**
+     * Read in place of the cells of spilled rows whose file was evicted to stay under the disk cap.
+     */
+    public static final Object EVICTED = new Object() {
+        @Override
+        public String toString() { return "<evicted>"; }
+    };
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int BUDGET_CHECK_INTERVAL = 1024; // Rows between memory estimates
+
+    private final List<String> columnNames;
+    private final String[] typeNames;
+    private final Column[] columns;
+    private volatile int rowCount;
+
+    private ResultSpillStore spillStore;
+    private volatile SpillFile spill;
+    private int pins;         // Grids showing the result; guarded by this
+    private boolean disposed; // Guarded by this
+    private volatile int spillFromRow = Integer.MAX_VALUE; // First row stored on disk
+
+    private ColumnarResult(List<String> columnNames, String[] typeNames, Column[] columns) {
+        this.columnNames = Collections.unmodifiableList(columnNames);
+        this.typeNames = typeNames;
+        this.columns = columns;
+    }
+
+    public static ColumnarResult fromMetaData(ResultSetMetaData meta) throws SQLException {
+        int colCount = meta.getColumnCount();
+        List<String> names = new ArrayList<>(colCount);
+        String[] typeNames = new String[colCount];
+        Column[] columns = new Column[colCount];
+
+        for (int i = 1; i <= colCount; i++) {
+            names.add(meta.getColumnLabel(i));
+            typeNames[i - 1] = meta.getColumnTypeName(i);
+            columns[i - 1] = createColumn(kindOf(meta.getColumnType(i), typeNames[i - 1]));
+        }
+        return new ColumnarResult(names, typeNames, columns);
+    }
+
+    static Kind kindOf(int sqlType, String typeName) {
+        return switch (sqlType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> Kind.INT;
+            case Types.BIGINT -> Kind.LONG;
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> Kind.DOUBLE;
+            case Types.BOOLEAN -> Kind.BOOLEAN;
+            // pgjdbc reports both bool and bit(n) as BIT; bit strings are read as text ("10110")
+            case Types.BIT -> "bool".equalsIgnoreCase(typeName) ? Kind.BOOLEAN : Kind.TEXT;
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR -> Kind.TEXT;
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY -> Kind.BYTES;
+            default -> Kind.OBJECT; // numeric, temporal, uuid, json, arrays...
+        };
+    }
+
+    /**
+     * An OBJECT cell as it is kept, in memory and in the spill file alike: types the spill file encodes
+     * stay as they are, any other driver type (dates, arrays, PGobject...) becomes its text, so rows
+     * read back from disk look exactly like rows that never left memory.
+     */
+    static Object storable(Object v) {
+        return switch (v) {
+            case null -> null;
+            case String s -> s;
+            case Integer i -> i;
+            case Long l -> l;
+            case Double d -> d;
+            case Boolean b -> b;
+            case byte[] b -> b;
+            case Timestamp t -> t;
+            case BigDecimal d -> d;
+            case OffsetDateTime t -> t;
+            default -> v.toString();
+        };
+    }
+
+    private static Column createColumn(Kind kind) {
+        return switch (kind) {
+            case INT -> new IntColumn();
+            case LONG -> new LongColumn();
+            case DOUBLE -> new DoubleColumn();
+            case BOOLEAN -> new BooleanColumn();
+            case TEXT -> new TextColumn();
+            case BYTES -> new BytesColumn();
+            case OBJECT -> new ObjectColumn();
+        };
+    }
+
+    // --- Writing (single thread) ---
+
+    /**
+     * Lets rows beyond the store's memory budget spill to disk.
+     */
+    public void enableSpill(ResultSpillStore store) {
+        this.spillStore = store;
+    }
+
+    /**
+     * Copies the current row of the result set. The cursor is not moved.
+     * @return false if the row could not be stored (the spill disk cap is exhausted).
+     */
+    public boolean appendRow(ResultSet rs) throws SQLException {
+        int row = rowCount;
+        if (spill != null) {
+            if (!spill.append(readRow(rs))) return false;
+        } else {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].append(row, rs, i + 1);
+            }
+            if (spillStore != null && (row + 1) % BUDGET_CHECK_INTERVAL == 0
+                    && estimateBytes() > spillStore.getMemoryBudgetBytes()) {
+                startSpill(row + 1);
+            }
+        }
+        rowCount = row + 1; // Publish only after every column holds the value
+        return true;
+    }
+
+    private void startSpill(int fromRow) throws SQLException {
+        try {
+            SpillFile file = spillStore.create();
+            synchronized (this) {
+                if (disposed) spillStore.dispose(file); // Nobody shows the rows any more: stop here
+                else if (pins > 0) spillStore.setPinned(file, true);
+                spill = file;
+            }
+            spillFromRow = fromRow;
+        } catch (IOException e) {
+            throw new SQLException("Could not create result spill file: " + e.getMessage(), e);
+        }
+    }
+
+    private Object[] readRow(ResultSet rs) throws SQLException {
+        Object[] row = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            int index = i + 1;
+            row[i] = switch (columns[i].kind()) {
+                case INT -> rs.getInt(index);
+                case LONG -> rs.getLong(index);
+                case DOUBLE -> rs.getDouble(index);
+                case BOOLEAN -> rs.getBoolean(index);
+                case TEXT -> rs.getString(index);
+                case BYTES -> rs.getBytes(index);
+                case OBJECT -> storable(rs.getObject(index));
+            };
+            if (rs.wasNull()) row[i] = null;
+        }
+        return row;
+    }
+
+    // --- Reading ---
+
+    public int getRowCount() { return rowCount; }
+
+    public int getColumnCount() { return columns.length; }
+
+    public List<String> getColumnNames() { return columnNames; }
+
+    public String getColumnName(int col) { return columnNames.get(col); }
+
+    public String getColumnTypeName(int col) { return typeNames[col]; }
+
+    public Kind getKind(int col) { return columns[col].kind(); }
+
+    /**
+     * Keeps the rows on disk while the result is on screen: a pinned result's spill file is never
+     * evicted to make room for other results. Each pin (one per grid) is undone by {@link #release}.
+     */
+    public synchronized void pin() {
+        if (pins++ == 0 && spill != null) spillStore.setPinned(spill, true);
+    }
+
+    /**
+     * Drops a pin; once no grid shows the result, it is {@link #dispose disposed}.
+     */
+    public synchronized void release() {
+        if (pins > 0 && --pins == 0) dispose();
+    }
+
+    /**
+     * Deletes the spill file and drops its cached pages; spilled rows read as {@link #EVICTED} from then on.
+     */
+    public synchronized void dispose() {
+        disposed = true;
+        if (spill != null) spillStore.dispose(spill);
+    }
+
+    /**
+     * Whether rows were lost because the spill file was evicted; those cells read as {@link #EVICTED}.
+     */
+    public boolean hasEvictedRows() {
+        SpillFile file = spill;
+        return file != null && file.isEvicted();
+    }
+
+    public boolean isNull(int row, int col) {
+        if (row >= spillFromRow) return spill.getValue(row - spillFromRow, col) == null;
+        return columns[col].isNull(row);
+    }
+
+    /**
+     * Boxes the cell on demand. Prefer the typed getters when the kind is known.
+     * Returns {@link #EVICTED} (not null) for spilled rows whose file has been evicted.
+     */
+    public Object getValue(int row, int col) {
+        if (row >= spillFromRow) return spill.getValue(row - spillFromRow, col);
+        return columns[col].get(row);
+    }
+
+    /**
+     * The typed getters below only work for rows held in memory.
+     */
+    public boolean isInMemory(int row) {
+        return row < spillFromRow;
+    }
+
+    public int getSpilledRowCount() {
+        int from = spillFromRow;
+        return from == Integer.MAX_VALUE ? 0 : rowCount - from;
+    }
+
+    public int getInt(int row, int col) { return ((IntColumn) columns[col]).values[row]; }
+
+    public long getLong(int row, int col) { return ((LongColumn) columns[col]).values[row]; }
+
+    public double getDouble(int row, int col) { return ((DoubleColumn) columns[col]).values[row]; }
+
+    /**
+     * Approximate heap footprint of the in-memory cells, used for memory budgeting.
+     */
+    public long estimateBytes() {
+        long total = 0;
+        for (Column c : columns) total += c.estimateBytes();
+        return total;
+    }
+
+    // --- Column storage ---
+
+    private abstract static class Column {
+        abstract Kind kind();
+        abstract void append(int row, ResultSet rs, int index) throws SQLException;
+        abstract boolean isNull(int row);
+        abstract Object get(int row);
+        abstract long estimateBytes();
+
+        static int grow(int capacity, int needed) {
+            return Math.max(needed, capacity + (capacity >> 1));
+        }
+    }
+
+    // Primitive columns keep nulls in a bitmap so the value arrays stay unboxed
+    private abstract static class PrimitiveColumn extends Column {
+        long[] nulls = new long[INITIAL_CAPACITY >> 6];
+
+        void markNull(int row) {
+            long[] n = nulls;
+            if ((row >> 6) >= n.length) {
+                n = Arrays.copyOf(n, grow(n.length, (row >> 6) + 1));
+            }
+            n[row >> 6] |= 1L << row;
+            nulls = n;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            long[] n = nulls;
+            return (row >> 6) < n.length && (n[row >> 6] & (1L << row)) != 0;
+        }
+
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : box(row);
+        }
+
+        abstract Object box(int row);
+
+        @Override
+        long estimateBytes() {
+            return 8L * nulls.length;
+        }
+    }
+
+    private static final class IntColumn extends PrimitiveColumn {
+        int[] values = new int[INITIAL_CAPACITY];
+
+        @Override Kind kind() { return Kind.INT; }
+
+        @Override
+        void append(int row, ResultSet rs, int index) throws SQLException {
+            int v = rs.getInt(index);
+            if (rs.wasNull()) markNull(row);
+            if (row >= values.length) values = Arrays.copyOf(values, grow(values.length, row + 1));
+            values[row] = v;
+        }
+
+        @Override Object box(int row) { return values[row]; }
+
+        @Override long estimateBytes() { return super.estimateBytes() + 4L * values.length; }
+    }
+
+    private static final class LongColumn extends PrimitiveColumn {
+        long[] values = new long[INITIAL_CAPACITY];
+
+        @Override Kind kind() { return Kind.LONG; }
+
+        @Override
+        void append(int row, ResultSet rs, int index) throws SQLException {
+            long v = rs.getLong(index);
+            if (rs.wasNull()) markNull(row);
+            if (row >= values.length) values = Arrays.copyOf(values, grow(values.length, row + 1));
+            values[row] = v;
+        }
+
+        @Override Object box(int row) { return values[row]; }
+
+        @Override long estimateBytes() { return super.estimateBytes() + 8L * values.length; }
+    }
+
+    private static final class DoubleColumn extends PrimitiveColumn {
+        double[] values = new double[INITIAL_CAPACITY];
+
+        @Override Kind kind() { return Kind.DOUBLE; }
+
+        @Override
+        void append(int row, ResultSet rs, int index) throws SQLException {
+            double v = rs.getDouble(index);
+            if (rs.wasNull()) markNull(row);
+            if (row >= values.length) values = Arrays.copyOf(values, grow(values.length, row + 1));
+            values[row] = v;
+        }
+
+        @Override Object box(int row) { return values[row]; }
+
+        @Override long estimateBytes() { return super.estimateBytes() + 8L * values.length; }
+    }
+
+    private static final class BooleanColumn extends PrimitiveColumn {
+        long[] bits = new long[INITIAL_CAPACITY >> 6];
+
+        @Override Kind kind() { return Kind.BOOLEAN; }
+
+        @Override
+        void append(int row, ResultSet rs, int index) throws SQLException {
+            boolean v = rs.getBoolean(index);
+            if (rs.wasNull()) markNull(row);
+            if ((row >> 6) >= bits.length) bits = Arrays.copyOf(bits, grow(bits.length, (row >> 6) + 1));
+            if (v) bits[row >> 6] |= 1L << row;
+        }
+
+        @Override Object box(int row) { return (bits[row >> 6] & (1L << row)) != 0; }
+
+        @Override long estimateBytes() { return super.estimateBytes() + 8L * bits.length; }
+    }
+
+    /**
+     * Dictionary-encoded while the column looks low-cardinality; falls back to plain references
+     * once the dictionary stops paying for itself.
+     */
+    private static final class TextColumn extends Column {
+        private static final int MAX_DICTIONARY = 1 << 16;
+        private static final int CARDINALITY_CHECK_ROWS = 4096;
+        private static final int STRING_OVERHEAD = 40;
+
+        private Map<String, Integer> dictionary = new HashMap<>();
+        private String[] dictValues = new String[64];
+        private int[] codes = new int[INITIAL_CAPACITY];
+        private volatile String[] plain; // Non-null once the dictionary was abandoned
+        private long stringBytes;
+
+        @Override Kind kind() { return Kind.TEXT; }
+
+        @Override
+        void append(int row, ResultSet rs, int index) throws SQLException {
+            String v = rs.getString(index);
+            if (plain != null) {
+                String[] p = plain;
+                if (row >= p.length) p = Arrays.copyOf(p, grow(p.length, row + 1));
+                p[row] = v;
+                plain = p;
+                if (v != null) stringBytes += STRING_OVERHEAD + v.length();
+                return;
+            }
+
+            int code = -1;
+            if (v != null) {
+                Integer existing = dictionary.get(v);
+                if (existing == null) {
+                    if (dictionary.size() >= MAX_DICTIONARY
+                            || (row >= CARDINALITY_CHECK_ROWS && dictionary.size() > row / 2)) {
+                        switchToPlain(row);
+                        append(row, rs, index);
+                        return;
+                    }
+                    code = dictionary.size();
+                    if (code >= dictValues.length) dictValues = Arrays.copyOf(dictValues, code * 2);
+                    dictValues[code] = v;
+                    dictionary.put(v, code);
+                    stringBytes += STRING_OVERHEAD + v.length() + 48; // + hash entry
+                } else {
+                    code = existing;
+                }
+            }
+            if (row >= codes.length) codes = Arrays.copyOf(codes, grow(codes.length, row + 1));
+            codes[row] = code;
+        }
+
+        private void switchToPlain(int rows) {
+            String[] p = new String[grow(codes.length, rows + 1)];
+            long bytes = 0;
+            for (int r = 0; r < rows; r++) {
+                p[r] = codes[r] < 0 ? null : dictValues[codes[r]];
+                if (p[r] != null) bytes += STRING_OVERHEAD + p[r].length();
+            }
+            plain = p;
+            stringBytes = bytes;
+            dictionary = null;
+            codes = null;
+            dictValues = null;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return get(row) == null;
+        }
+
+        @Override
+        Object get(int row) {
+            String[] p = plain;
+            if (p == null) {
+                int[] c = codes;
+                String[] d = dictValues;
+                if (c != null && d != null) {
+                    int code = c[row];
+                    return code < 0 ? null : d[code];
+                }
+                p = plain; // Switched to plain storage while we were looking
+            }
+            return p[row];
+        }
+
+        @Override
+        long estimateBytes() {
+            String[] p = plain;
+            if (p != null) return 4L * p.length + stringBytes;
+            return 4L * codes.length + 4L * dictValues.length + stringBytes;
+        }
+    }
+
+    /**
+     * bytea values live back to back in shared blocks; each row points at its slice.
+     */
+    private static final class BytesColumn extends Column {
+        private static final int BLOCK_SIZE = 1 << 20;
+
+        private final List<byte[]> blocks = new ArrayList<>();
+        private int blockFill = BLOCK_SIZE;
+        private int[] blockIndex = new int[INITIAL_CAPACITY];
+        private int[] offsets = new int[INITIAL_CAPACITY];
+        private int[] lengths = new int[INITIAL_CAPACITY]; // -1 marks NULL
+        private volatile byte[][] blockView = new byte[0][];
+
+        @Override Kind kind() { return Kind.BYTES; }
+
+        @Override
+        void append(int row, ResultSet rs, int index) throws SQLException {
+            byte[] v = rs.getBytes(index);
+            if (row >= lengths.length) {
+                int cap = grow(lengths.length, row + 1);
+                blockIndex = Arrays.copyOf(blockIndex, cap);
+                offsets = Arrays.copyOf(offsets, cap);
+                lengths = Arrays.copyOf(lengths, cap);
+            }
+            if (v == null) {
+                lengths[row] = -1;
+                return;
+            }
+            if (blockFill + v.length > BLOCK_SIZE || blocks.isEmpty()) {
+                blocks.add(new byte[Math.max(BLOCK_SIZE, v.length)]);
+                blockFill = 0;
+                blockView = blocks.toArray(new byte[0][]);
+            }
+            System.arraycopy(v, 0, blocks.get(blocks.size() - 1), blockFill, v.length);
+            blockIndex[row] = blocks.size() - 1;
+            offsets[row] = blockFill;
+            lengths[row] = v.length;
+            blockFill += v.length;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return lengths[row] < 0;
+        }
+
+        @Override
+        Object get(int row) {
+            int len = lengths[row];
+            if (len < 0) return null;
+            int start = offsets[row];
+            return Arrays.copyOfRange(blockView[blockIndex[row]], start, start + len);
+        }
+
+        @Override
+        long estimateBytes() {
+            long total = 12L * lengths.length;
+            for (byte[] b : blockView) total += b.length;
+            return total;
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+        private static final int BOXED_VALUE_SIZE = 48; // Typical BigDecimal / Timestamp / PGobject
+
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        private long nonNull;
+
+        @Override Kind kind() { return Kind.OBJECT; }
+
+        @Override
+        void append(int row, ResultSet rs, int index) throws SQLException {
+            if (row >= values.length) values = Arrays.copyOf(values, grow(values.length, row + 1));
+            Object v = storable(rs.getObject(index));
+            values[row] = v;
+            if (v != null) nonNull++;
+        }
+
+        @Override boolean isNull(int row) { return values[row] == null; }
+
+        @Override Object get(int row) { return values[row]; }
+
+        @Override
+        long estimateBytes() {
+            return 4L * values.length + BOXED_VALUE_SIZE * nonNull;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ro.fintechpro.core.result;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Owns the spill files of all open results and keeps their total size under a disk cap,
+ * evicting the least recently read file first. Pinned files (results on screen) are never evicted;
+ * when only pinned files are left, the growing result stops instead (see {@link SpillFile#append}).
+ */
+public class ResultSpillStore {
+
+    public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+    public static final long DEFAULT_DISK_CAP = 8L * 1024 * 1024 * 1024;
+
+    private static final String SUFFIX = ".spill";
+
+    private final Path directory;
+    private volatile long memoryBudgetBytes = DEFAULT_MEMORY_BUDGET;
+    private volatile long diskCapBytes = DEFAULT_DISK_CAP;
+
+    // Access-ordered: the eldest entry is the least recently read file
+    private final Map<SpillFile, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<SpillFile> pinned = new HashSet<>();
+    private long diskUsage;
+
+    public ResultSpillStore(Path directory) {
+        this.directory = directory;
+        purgeLeftovers();
+    }
+
+    // Spill files are useless once the process that wrote them is gone
+    private void purgeLeftovers() {
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+                for (Path p : stream) Files.deleteIfExists(p);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public long getMemoryBudgetBytes() { return memoryBudgetBytes; }
+
+    public void setMemoryBudgetBytes(long bytes) { this.memoryBudgetBytes = bytes; }
+
+    public long getDiskCapBytes() { return diskCapBytes; }
+
+    public void setDiskCapBytes(long bytes) { this.diskCapBytes = bytes; }
+
+    public synchronized long getDiskUsage() { return diskUsage; }
+
+    synchronized SpillFile create() throws IOException {
+        Path path = directory.resolve(UUID.randomUUID() + SUFFIX);
+        SpillFile file = new SpillFile(this, path);
+        path.toFile().deleteOnExit();
+        files.put(file, 0L);
+        return file;
+    }
+
+    synchronized void setPinned(SpillFile file, boolean pin) {
+        if (pin) pinned.add(file);
+        else pinned.remove(file);
+    }
+
+    /**
+     * Deletes a file nobody reads any more, returning its share of the disk cap.
+     */
+    synchronized void dispose(SpillFile file) {
+        pinned.remove(file);
+        Long bytes = files.remove(file);
+        if (bytes != null) diskUsage -= bytes;
+        file.evict();
+    }
+
+    synchronized void touched(SpillFile file) {
+        files.get(file); // Moves the file to the most recently used end
+    }
+
+    /**
+     * Makes room for {@code bytes} more in {@code file}, evicting other files LRU-first.
+     * @return false if the file alone would exceed the cap.
+     */
+    synchronized boolean reserve(SpillFile file, long bytes) {
+        Long current = files.get(file);
+        if (current == null) return false; // Already evicted
+
+        Iterator<Map.Entry<SpillFile, Long>> it = files.entrySet().iterator();
+        while (diskUsage + bytes > diskCapBytes && it.hasNext()) {
+            Map.Entry<SpillFile, Long> eldest = it.next();
+            if (eldest.getKey() == file || pinned.contains(eldest.getKey())) continue;
+            diskUsage -= eldest.getValue();
+            it.remove();
+            eldest.getKey().evict();
+        }
+        if (diskUsage + bytes > diskCapBytes) return false;
+
+        files.put(file, current + bytes);
+        diskUsage += bytes;
+        return true;
+    }
+}
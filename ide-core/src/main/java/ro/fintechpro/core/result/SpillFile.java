@@ -0,0 +1,252 @@
+package ro.fintechpro.core.result;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rows of one result that did not fit in the memory budget.
+ * Rows are written in pages of {@link #PAGE_ROWS}; a page is read back into a heap buffer and decoded
+ * whole, and the last few decoded pages are kept for scrolling. Nothing is memory-mapped, so the file
+ * can be deleted as soon as it is evicted (a mapped file cannot be deleted on Windows).
+ *
+ * One thread appends, any thread reads.
+ */
+public class SpillFile {
+
+    static final int PAGE_ROWS = 1024;
+    private static final int DECODED_PAGE_CACHE = 8;
+
+    // Cell tags
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte TEXT = 5;
+    private static final byte BYTES = 6;
+    private static final byte TIMESTAMP = 7;
+    private static final byte DECIMAL = 8;
+    private static final byte TIMESTAMP_TZ = 9;
+
+    private final ResultSpillStore store;
+    private final Path path;
+    private final FileChannel channel;
+
+    private long[] pageOffsets = new long[64]; // pageOffsets[p]..pageOffsets[p + 1] is page p
+    private int pages;
+    private long size;
+    private Object[][] pending = new Object[PAGE_ROWS][];
+    private int pendingCount;
+    private boolean full;
+    private boolean evicted;
+
+    private final Map<Integer, Object[][]> decodedPages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+            return size() > DECODED_PAGE_CACHE;
+        }
+    };
+
+    SpillFile(ResultSpillStore store, Path path) throws IOException {
+        this.store = store;
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // --- Writing ---
+
+    /**
+     * @return false if the row was not stored because the disk cap is exhausted or the file was evicted.
+     */
+    boolean append(Object[] row) {
+        byte[] page = null;
+        synchronized (this) {
+            if (full || evicted) return false;
+            pending[pendingCount++] = row;
+            if (pendingCount == PAGE_ROWS) {
+                page = encode(pending, pendingCount);
+            }
+        }
+        if (page != null) writePage(page);
+        return true;
+    }
+
+    private void writePage(byte[] page) {
+        // Reserve outside our own lock: the store may evict (and lock) other files meanwhile
+        if (!store.reserve(this, page.length)) {
+            synchronized (this) { full = true; } // The pending page stays readable from memory
+            return;
+        }
+        synchronized (this) {
+            if (evicted) return;
+            try {
+                channel.write(ByteBuffer.wrap(page), size);
+            } catch (IOException e) {
+                e.printStackTrace();
+                full = true;
+                return;
+            }
+            if (pages + 2 > pageOffsets.length) pageOffsets = Arrays.copyOf(pageOffsets, pageOffsets.length * 2);
+            pageOffsets[pages] = size;
+            size += page.length;
+            pages++;
+            pageOffsets[pages] = size;
+            pending = new Object[PAGE_ROWS][];
+            pendingCount = 0;
+        }
+    }
+
+    private static byte[] encode(Object[][] rows, int count) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (int r = 0; r < count; r++) {
+                Object[] row = rows[r];
+                out.writeShort(row.length);
+                for (Object v : row) writeCell(out, v);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // In-memory stream, cannot happen
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeCell(DataOutputStream out, Object v) throws IOException {
+        switch (v) {
+            case null -> out.writeByte(NULL);
+            case Integer i -> { out.writeByte(INT); out.writeInt(i); }
+            case Long l -> { out.writeByte(LONG); out.writeLong(l); }
+            case Double d -> { out.writeByte(DOUBLE); out.writeDouble(d); }
+            case Boolean b -> { out.writeByte(BOOLEAN); out.writeBoolean(b); }
+            case byte[] b -> { out.writeByte(BYTES); out.writeInt(b.length); out.write(b); }
+            case Timestamp t -> { out.writeByte(TIMESTAMP); out.writeLong(t.getTime()); out.writeInt(t.getNanos()); }
+            case BigDecimal d -> { out.writeByte(DECIMAL); writeString(out, d.toString()); }
+            case OffsetDateTime t -> {
+                out.writeByte(TIMESTAMP_TZ);
+                out.writeLong(t.toEpochSecond());
+                out.writeInt(t.getNano());
+                out.writeInt(t.getOffset().getTotalSeconds());
+            }
+            // Strings, and whatever ColumnarResult.storable() turned into one
+            default -> { out.writeByte(TEXT); writeString(out, v.toString()); }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    // --- Reading ---
+
+    /**
+     * @return the cell, or {@link ColumnarResult#EVICTED} if the file is gone.
+     */
+    Object getValue(int row, int col) {
+        store.touched(this);
+        synchronized (this) {
+            if (evicted) return ColumnarResult.EVICTED;
+            int page = row / PAGE_ROWS;
+            int index = row % PAGE_ROWS;
+            if (page == pages) return pending[index][col];
+
+            Object[][] decoded = decodedPages.get(page);
+            if (decoded == null) {
+                try {
+                    long start = pageOffsets[page];
+                    ByteBuffer buf = ByteBuffer.allocate((int) (pageOffsets[page + 1] - start));
+                    while (buf.hasRemaining()) {
+                        if (channel.read(buf, start + buf.position()) < 0) throw new IOException("Spill file truncated");
+                    }
+                    decoded = decode(buf.flip());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return ColumnarResult.EVICTED; // Unreadable: shown like an evicted page, never as NULL
+                }
+                decodedPages.put(page, decoded);
+            }
+            return decoded[index][col];
+        }
+    }
+
+    private static Object[][] decode(ByteBuffer buf) {
+        Object[][] rows = new Object[PAGE_ROWS][];
+        for (int r = 0; r < PAGE_ROWS && buf.hasRemaining(); r++) {
+            Object[] row = new Object[buf.getShort()];
+            for (int c = 0; c < row.length; c++) {
+                row[c] = readCell(buf);
+            }
+            rows[r] = row;
+        }
+        return rows;
+    }
+
+    private static Object readCell(ByteBuffer buf) {
+        byte tag = buf.get();
+        return switch (tag) {
+            case NULL -> null;
+            case INT -> buf.getInt();
+            case LONG -> buf.getLong();
+            case DOUBLE -> buf.getDouble();
+            case BOOLEAN -> buf.get() != 0;
+            case BYTES -> {
+                byte[] b = new byte[buf.getInt()];
+                buf.get(b);
+                yield b;
+            }
+            case TIMESTAMP -> {
+                Timestamp t = new Timestamp(buf.getLong());
+                t.setNanos(buf.getInt());
+                yield t;
+            }
+            case DECIMAL -> new BigDecimal(readString(buf));
+            case TIMESTAMP_TZ -> {
+                long seconds = buf.getLong();
+                int nanos = buf.getInt();
+                yield OffsetDateTime.ofInstant(Instant.ofEpochSecond(seconds, nanos), ZoneOffset.ofTotalSeconds(buf.getInt()));
+            }
+            default -> readString(buf);
+        };
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] utf8 = new byte[buf.getInt()];
+        buf.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    // --- Lifecycle (driven by the store) ---
+
+    synchronized long getSize() { return size; }
+
+    synchronized boolean isEvicted() { return evicted; }
+
+    synchronized void evict() {
+        if (evicted) return;
+        evicted = true;
+        pending = null;
+        decodedPages.clear();
+        try {
+            channel.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
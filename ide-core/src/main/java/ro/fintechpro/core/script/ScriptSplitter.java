@@ -0,0 +1,163 @@
+package ro.fintechpro.core.script;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a SQL script into statements on top-level semicolons.
+ * Understands the PostgreSQL lexical rules that hide semicolons:
+ * - quoted literals ('...', E'...' with backslash escapes) and quoted identifiers
+ * - dollar-quoted bodies ($$ ... $$, $tag$ ... $tag$)
+ * - line and (nested) block comments
+ * - BEGIN ATOMIC ... END function bodies
+ * The inline data after COPY ... FROM STDIN, up to a line holding only "\.", belongs to that statement.
+ */
+public final class ScriptSplitter {
+
+    private ScriptSplitter() {}
+
+    public static List<ScriptStatement> split(String script) {
+        return new Scanner(script).run();
+    }
+
+    private static final class Scanner {
+        private final String s;
+        private final int n;
+        private final List<ScriptStatement> out = new ArrayList<>();
+
+        // Line tracking, advanced monotonically
+        private int linePos = 0;
+        private int lineNo = 1;
+
+        // Current statement
+        private int sigStart = -1;   // First char that is not whitespace or comment
+        private String firstWord;
+        private String lastWord;
+        private boolean returning;
+        private boolean stdin;
+        private boolean stdout;
+        private int atomicDepth;
+
+        Scanner(String script) {
+            this.s = script;
+            this.n = script.length();
+        }
+
+        List<ScriptStatement> run() {
+            int i = 0;
+            while (i < n) {
+                char c = s.charAt(i);
+
+                if (SqlLexer.startsLineComment(s, i)) {
+                    i = SqlLexer.skipLineComment(s, i);
+                    continue;
+                }
+                if (SqlLexer.startsBlockComment(s, i)) {
+                    i = SqlLexer.skipBlockComment(s, i);
+                    continue;
+                }
+                if (Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+
+                if (sigStart < 0) sigStart = i;
+
+                if (c == ';' && atomicDepth == 0) {
+                    i = endStatement(i, i + 1);
+                } else if (c == '\'') {
+                    i = SqlLexer.skipQuoted(s, i, '\'', SqlLexer.isEscapeString(s, i));
+                } else if (c == '"') {
+                    i = SqlLexer.skipQuoted(s, i, '"', false);
+                } else if (c == '$') {
+                    i = SqlLexer.skipDollarQuoted(s, i);
+                } else if (SqlLexer.isWordStart(c)) {
+                    int j = i + 1;
+                    while (j < n && SqlLexer.isWordChar(s.charAt(j))) j++;
+                    onWord(s.substring(i, j));
+                    i = j;
+                } else {
+                    i++;
+                }
+            }
+            if (sigStart >= 0) endStatement(n, n);
+            return out;
+        }
+
+        private void onWord(String word) {
+            if (firstWord == null) firstWord = word;
+            if (word.equalsIgnoreCase("RETURNING")) returning = true;
+            else if (word.equalsIgnoreCase("STDIN")) stdin = true;
+            else if (word.equalsIgnoreCase("STDOUT")) stdout = true;
+
+            // SQL-standard routine bodies contain semicolons of their own
+            if (word.equalsIgnoreCase("ATOMIC") && "BEGIN".equalsIgnoreCase(lastWord)) {
+                atomicDepth++;
+            } else if (atomicDepth > 0) {
+                if (word.equalsIgnoreCase("CASE")) atomicDepth++;
+                else if (word.equalsIgnoreCase("END")) atomicDepth--;
+            }
+            lastWord = word;
+        }
+
+        /**
+         * Emits the statement [sigStart, end) and returns where scanning resumes.
+         */
+        private int endStatement(int end, int resume) {
+            if (sigStart < 0) return resume;
+            String sql = s.substring(sigStart, end).strip();
+            int line = lineAt(sigStart);
+            ScriptStatement.Kind kind = classify();
+
+            String copyData = null;
+            if (kind == ScriptStatement.Kind.COPY_IN) {
+                // Data starts on the next line and runs up to a line holding only "\."
+                int eol = s.indexOf('\n', resume);
+                int dataStart = eol < 0 ? n : eol + 1;
+                int pos = dataStart;
+                int dataEnd = n;
+                resume = n;
+                while (pos < n) {
+                    int next = s.indexOf('\n', pos);
+                    int lineEnd = next < 0 ? n : next;
+                    if (s.substring(pos, lineEnd).strip().equals("\\.")) {
+                        dataEnd = pos;
+                        resume = next < 0 ? n : next + 1;
+                        break;
+                    }
+                    pos = lineEnd + 1;
+                }
+                copyData = s.substring(dataStart, Math.max(dataStart, dataEnd));
+            }
+
+            out.add(new ScriptStatement(sql, line, kind, copyData));
+
+            sigStart = -1;
+            firstWord = null;
+            lastWord = null;
+            returning = stdin = stdout = false;
+            atomicDepth = 0;
+            return resume;
+        }
+
+        private ScriptStatement.Kind classify() {
+            String w = firstWord == null ? "" : firstWord.toUpperCase();
+            return switch (w) {
+                case "SELECT", "WITH", "VALUES", "TABLE", "SHOW", "EXPLAIN", "FETCH" -> ScriptStatement.Kind.QUERY;
+                case "INSERT", "UPDATE", "DELETE", "MERGE" ->
+                        returning ? ScriptStatement.Kind.QUERY : ScriptStatement.Kind.DML;
+                case "COPY" -> stdin ? ScriptStatement.Kind.COPY_IN
+                        : stdout ? ScriptStatement.Kind.COPY_OUT
+                        : ScriptStatement.Kind.OTHER;
+                default -> ScriptStatement.Kind.OTHER;
+            };
+        }
+
+        private int lineAt(int pos) {
+            for (; linePos < pos; linePos++) {
+                if (s.charAt(linePos) == '\n') lineNo++;
+            }
+            return lineNo;
+        }
+    }
+}
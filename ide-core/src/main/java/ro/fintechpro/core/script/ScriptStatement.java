@@ -0,0 +1,34 @@
+package ro.fintechpro.core.script;
+
+/**
+ * One statement cut out of a script by {@link ScriptSplitter}.
+ *
+ * @param sql      The statement text, without the terminating semicolon.
+ * @param line     1-based line in the script where the statement starts.
+ * @param kind     How the executor should run it.
+ * @param copyData The inline data block for COPY ... FROM STDIN (null otherwise).
+ */
+public record ScriptStatement(String sql, int line, Kind kind, String copyData) {
+
+    public enum Kind {
+        QUERY,    // SELECT, WITH, VALUES, SHOW, EXPLAIN, DML with RETURNING ... - expected to return rows
+        DML,      // INSERT / UPDATE / DELETE / MERGE without RETURNING - safe to batch
+        COPY_IN,  // COPY ... FROM STDIN with inline data
+        COPY_OUT, // COPY ... TO STDOUT
+        OTHER     // DDL, SET, transaction control ...
+    }
+
+    public boolean isBatchable() {
+        return kind == Kind.DML;
+    }
+
+    /**
+     * First line of the statement, shortened for logs and status text.
+     */
+    public String summary() {
+        String s = sql.strip();
+        int nl = s.indexOf('\n');
+        if (nl >= 0) s = s.substring(0, nl).strip() + " …";
+        return s.length() > 80 ? s.substring(0, 80) + "…" : s;
+    }
+}
@@ -0,0 +1,252 @@
+package ro.fintechpro.core.script;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shallow, token-level analysis of a single statement, for the result cache:
+ * whether it only reads, which tables it reads and which it writes.
+ * Table names are reported bare (no schema) and lower-cased unless quoted,
+ * so matching errs on the side of too many tables rather than too few.
+ */
+public final class SqlAnalysis {
+
+    // Never served from cache: writes, row locks and volatile functions
+    private static final Set<String> NOT_CACHEABLE = Set.of(
+            "insert", "update", "delete", "merge", "into", "share",
+            "nextval", "setval", "random", "gen_random_uuid", "clock_timestamp",
+            "pg_sleep", "txid_current", "pg_advisory_lock", "pg_try_advisory_lock");
+
+    // Statements that change no table data or definitions
+    private static final Set<String> NO_WRITE = Set.of(
+            "select", "values", "table", "show", "set", "reset", "begin", "start", "commit", "end",
+            "rollback", "savepoint", "release", "abort", "listen", "unlisten", "notify", "prepare",
+            "deallocate", "discard", "vacuum", "analyze", "checkpoint", "fetch", "move", "close",
+            "declare", "load");
+
+    // Words that end a FROM item instead of aliasing it
+    private static final Set<String> CLAUSE_WORDS = Set.of(
+            "where", "join", "on", "using", "left", "right", "inner", "outer", "full", "cross", "natural",
+            "group", "order", "limit", "offset", "union", "except", "intersect", "window", "having",
+            "fetch", "for", "returning", "set", "tablesample", "lateral", "values", "select", "do");
+
+    private record Token(String text, boolean quoted) {
+        boolean is(String keyword) {
+            return !quoted && text.equals(keyword);
+        }
+
+        boolean isName() {
+            return quoted || (!text.isEmpty() && SqlLexer.isWordStart(text.charAt(0)));
+        }
+    }
+
+    private SqlAnalysis() {}
+
+    public static boolean isReadOnly(String sql) {
+        List<Token> tokens = tokenize(sql);
+        if (tokens.isEmpty()) return false;
+        Token first = tokens.get(0);
+        if (!(first.is("select") || first.is("with") || first.is("values") || first.is("table"))) return false;
+        for (Token t : tokens) {
+            if (!t.quoted() && NOT_CACHEABLE.contains(t.text())) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tables named after FROM / JOIN (and TABLE, for the TABLE command).
+     */
+    public static Set<String> tablesRead(String sql) {
+        List<Token> tokens = tokenize(sql);
+        Set<String> tables = new HashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            Token t = tokens.get(i);
+            if (t.is("from") || t.is("join") || (i == 0 && t.is("table"))) {
+                readFromList(tokens, i + 1, tables);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Tables whose data or definition the statement changes.
+     * @return an empty set when it changes nothing, or null when the targets cannot be told
+     *         (CALL, DO, DROP SCHEMA ...) and anything may have changed.
+     */
+    public static Set<String> tablesWritten(String sql) {
+        List<Token> tokens = tokenize(sql);
+        if (tokens.isEmpty()) return Set.of();
+        Token first = tokens.get(0);
+        if (first.quoted()) return null;
+
+        Set<String> tables = new HashSet<>();
+        switch (first.text()) {
+            case "insert", "update", "delete", "merge", "with", "explain" -> {
+                scanDmlTargets(tokens, tables);
+                boolean mayBePlainQuery = first.is("with") || first.is("explain");
+                return tables.isEmpty() && !mayBePlainQuery ? null : tables;
+            }
+            case "truncate" -> {
+                int i = skip(tokens, 1, "table", "only");
+                readNameList(tokens, i, tables);
+                return tables.isEmpty() ? null : tables;
+            }
+            case "copy" -> {
+                // COPY t TO ... only reads
+                if (tokens.size() > 1 && tokens.get(1).isName() && containsWord(tokens, "from")) {
+                    tables.add(readName(tokens, 1).name());
+                }
+                return tables;
+            }
+            case "create", "alter", "drop", "refresh", "comment" -> {
+                int i = skip(tokens, 1, "or", "replace", "temp", "temporary", "unlogged", "global", "local",
+                        "materialized", "foreign", "recursive", "on");
+                if (i >= tokens.size()) return null;
+                Token kind = tokens.get(i);
+                if (kind.is("index") && first.is("create")) return tables; // No data changes
+                if (!(kind.is("table") || kind.is("view"))) return null;
+                i = skip(tokens, i + 1, "if", "not", "exists", "only", "concurrently");
+                readNameList(tokens, i, tables);
+                return tables.isEmpty() ? null : tables;
+            }
+            default -> {
+                return NO_WRITE.contains(first.text()) ? tables : null;
+            }
+        }
+    }
+
+    private static void scanDmlTargets(List<Token> tokens, Set<String> tables) {
+        for (int i = 0; i < tokens.size() - 1; i++) {
+            Token t = tokens.get(i);
+            int at = -1;
+            if ((t.is("insert") || t.is("merge")) && tokens.get(i + 1).is("into")) {
+                at = i + 2;
+            } else if (t.is("delete") && tokens.get(i + 1).is("from")) {
+                at = i + 2;
+            } else if (t.is("update") && !(i > 0 && (tokens.get(i - 1).is("for") || tokens.get(i - 1).is("key")
+                    || tokens.get(i - 1).is("do")))) {
+                at = i + 1; // Not FOR [NO KEY] UPDATE, nor ON CONFLICT DO UPDATE
+            }
+            if (at < 0) continue;
+            at = skip(tokens, at, "only");
+            if (at < tokens.size() && tokens.get(at).isName()) {
+                tables.add(readName(tokens, at).name());
+            }
+        }
+    }
+
+    private static void readFromList(List<Token> tokens, int i, Set<String> tables) {
+        while (i < tokens.size()) {
+            i = skip(tokens, i, "only", "lateral");
+            if (i >= tokens.size() || !tokens.get(i).isName() || CLAUSE_WORDS.contains(tokens.get(i).text())) return;
+
+            QualifiedName name = readName(tokens, i);
+            i = name.next();
+            if (i < tokens.size() && tokens.get(i).is("(")) return; // A function call, not a table
+            tables.add(name.name());
+
+            // Optional alias
+            if (i < tokens.size() && tokens.get(i).is("as")) i++;
+            if (i < tokens.size() && tokens.get(i).isName() && !CLAUSE_WORDS.contains(tokens.get(i).text())) i++;
+
+            if (i < tokens.size() && tokens.get(i).is(",")) i++;
+            else return;
+        }
+    }
+
+    private static void readNameList(List<Token> tokens, int i, Set<String> tables) {
+        while (i < tokens.size() && tokens.get(i).isName()) {
+            QualifiedName name = readName(tokens, i);
+            tables.add(name.name());
+            i = name.next();
+            if (i < tokens.size() && tokens.get(i).is(",")) i++;
+            else return;
+        }
+    }
+
+    private record QualifiedName(String name, int next) {}
+
+    // schema.table -> "table"
+    private static QualifiedName readName(List<Token> tokens, int i) {
+        String name = tokens.get(i).text();
+        i++;
+        while (i + 1 < tokens.size() && tokens.get(i).is(".") && tokens.get(i + 1).isName()) {
+            name = tokens.get(i + 1).text();
+            i += 2;
+        }
+        return new QualifiedName(name, i);
+    }
+
+    private static int skip(List<Token> tokens, int i, String... words) {
+        outer:
+        while (i < tokens.size()) {
+            for (String w : words) {
+                if (tokens.get(i).is(w)) {
+                    i++;
+                    continue outer;
+                }
+            }
+            break;
+        }
+        return i;
+    }
+
+    private static boolean containsWord(List<Token> tokens, String word) {
+        for (Token t : tokens) {
+            if (t.is(word)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Words (unquoted ones lower-cased), quoted identifiers, and single punctuation characters.
+     * Literals and numbers become a "0" token, comments disappear.
+     */
+    private static List<Token> tokenize(String sql) {
+        List<Token> tokens = new ArrayList<>();
+        int n = sql.length();
+        int i = 0;
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (SqlLexer.startsLineComment(sql, i)) {
+                i = SqlLexer.skipLineComment(sql, i);
+            } else if (SqlLexer.startsBlockComment(sql, i)) {
+                i = SqlLexer.skipBlockComment(sql, i);
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'') {
+                i = SqlLexer.skipQuoted(sql, i, '\'', SqlLexer.isEscapeString(sql, i));
+                tokens.add(new Token("0", false));
+            } else if (c == '$' && i + 1 < n && !Character.isDigit(sql.charAt(i + 1))) {
+                i = SqlLexer.skipDollarQuoted(sql, i);
+                tokens.add(new Token("0", false));
+            } else if (c == '"') {
+                int end = SqlLexer.skipQuoted(sql, i, '"', false);
+                String ident = sql.substring(i + 1, Math.max(i + 1, end - 1)).replace("\"\"", "\"");
+                tokens.add(new Token(ident, true));
+                i = end;
+            } else if (SqlLexer.isWordStart(c)) {
+                int j = i + 1;
+                while (j < n && SqlLexer.isWordChar(sql.charAt(j))) j++;
+                // E'...' and similar prefixes belong to the literal that follows
+                if (j < n && sql.charAt(j) == '\'' && j - i == 1) {
+                    i = j;
+                    continue;
+                }
+                tokens.add(new Token(sql.substring(i, j).toLowerCase(), false));
+                i = j;
+            } else if (Character.isDigit(c)) {
+                int j = i + 1;
+                while (j < n && (Character.isLetterOrDigit(sql.charAt(j)) || sql.charAt(j) == '.')) j++;
+                tokens.add(new Token("0", false));
+                i = j;
+            } else {
+                tokens.add(new Token(String.valueOf(c), false));
+                i++;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,92 @@
+package ro.fintechpro.core.script;
+
+/**
+ * PostgreSQL lexical helpers shared by the script tools.
+ * Each skip method takes the index of the opening token and returns the index just past its end
+ * (or the text length when it is never closed).
+ */
+final class SqlLexer {
+
+    private SqlLexer() {}
+
+    static boolean startsLineComment(String s, int i) {
+        return s.startsWith("--", i);
+    }
+
+    static boolean startsBlockComment(String s, int i) {
+        return s.startsWith("/*", i);
+    }
+
+    static int skipLineComment(String s, int i) {
+        int eol = s.indexOf('\n', i);
+        return eol < 0 ? s.length() : eol + 1;
+    }
+
+    static int skipBlockComment(String s, int i) {
+        int n = s.length();
+        int depth = 0;
+        while (i < n) {
+            if (s.startsWith("/*", i)) {
+                depth++;
+                i += 2;
+            } else if (s.startsWith("*/", i)) {
+                i += 2;
+                if (--depth == 0) return i;
+            } else {
+                i++;
+            }
+        }
+        return n;
+    }
+
+    static int skipQuoted(String s, int i, char quote, boolean backslashEscapes) {
+        int n = s.length();
+        i++;
+        while (i < n) {
+            char c = s.charAt(i);
+            if (backslashEscapes && c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < n && s.charAt(i + 1) == quote) i += 2; // Doubled quote
+                else return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * $tag$ ... $tag$ where tag is empty or an identifier. Anything else (e.g. $1) is not a
+     * dollar quote and only the '$' is consumed.
+     */
+    static int skipDollarQuoted(String s, int i) {
+        int n = s.length();
+        int j = i + 1;
+        while (j < n && s.charAt(j) != '$') {
+            char c = s.charAt(j);
+            if (!(Character.isLetterOrDigit(c) || c == '_')) return i + 1;
+            j++;
+        }
+        if (j >= n) return n;
+        String tag = s.substring(i, j + 1);
+        int close = s.indexOf(tag, j + 1);
+        return close < 0 ? n : close + tag.length();
+    }
+
+    /**
+     * True if the quote at i opens an E'...' string (backslash escapes on).
+     */
+    static boolean isEscapeString(String s, int i) {
+        return i > 0 && (s.charAt(i - 1) == 'E' || s.charAt(i - 1) == 'e')
+                && (i < 2 || !isWordChar(s.charAt(i - 2)));
+    }
+
+    static boolean isWordStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
@@ -0,0 +1,103 @@
+package ro.fintechpro.core.script;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds bind placeholders in console SQL and rewrites them to JDBC '?' markers.
+ * Two styles are recognized, outside literals, comments and dollar-quoted bodies:
+ * - named, ":name" (but not "::type" casts or ":=")
+ * - positional, "$1"
+ * A name can appear several times; each occurrence becomes its own '?'.
+ */
+public final class SqlParameters {
+
+    /**
+     * @param jdbcSql   The statement with '?' markers and whitespace runs collapsed, used as the cache key.
+     * @param bindOrder The placeholder name for each '?', in order ("name" or "$1").
+     */
+    public record ParsedSql(String jdbcSql, List<String> bindOrder) {
+        public boolean hasParameters() {
+            return !bindOrder.isEmpty();
+        }
+    }
+
+    private SqlParameters() {}
+
+    public static ParsedSql parse(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        List<String> binds = new ArrayList<>();
+        int n = sql.length();
+        int i = 0;
+        while (i < n) {
+            char c = sql.charAt(i);
+            int next;
+            if (SqlLexer.startsLineComment(sql, i)) {
+                next = SqlLexer.skipLineComment(sql, i);
+            } else if (SqlLexer.startsBlockComment(sql, i)) {
+                next = SqlLexer.skipBlockComment(sql, i);
+            } else if (c == '\'') {
+                next = SqlLexer.skipQuoted(sql, i, '\'', SqlLexer.isEscapeString(sql, i));
+            } else if (c == '"') {
+                next = SqlLexer.skipQuoted(sql, i, '"', false);
+            } else if (c == '$' && i + 1 < n && Character.isDigit(sql.charAt(i + 1))
+                    && (i == 0 || !SqlLexer.isWordChar(sql.charAt(i - 1)))) {
+                next = i + 1;
+                while (next < n && Character.isDigit(sql.charAt(next))) next++;
+                binds.add(sql.substring(i, next));
+                out.append('?');
+                i = next;
+                continue;
+            } else if (c == '$') {
+                next = SqlLexer.skipDollarQuoted(sql, i);
+            } else if (c == ':' && isNamedPlaceholder(sql, i)) {
+                next = i + 2;
+                while (next < n && SqlLexer.isWordChar(sql.charAt(next))) next++;
+                binds.add(sql.substring(i + 1, next));
+                out.append('?');
+                i = next;
+                continue;
+            } else if (c == ':' && i + 1 < n && sql.charAt(i + 1) == ':') {
+                next = i + 2; // Cast: keep both colons together
+            } else if (Character.isWhitespace(c)) {
+                next = i + 1;
+                while (next < n && Character.isWhitespace(sql.charAt(next))) next++;
+                if (!out.isEmpty() && next < n) out.append(' ');
+                i = next;
+                continue;
+            } else if (c == '?') {
+                // A literal '?' would shift every marker after it; JDBC escapes it by doubling
+                next = i + 1;
+                out.append("??");
+                i = next;
+                continue;
+            } else {
+                next = i + 1;
+            }
+            out.append(sql, i, next);
+            i = next;
+        }
+        return new ParsedSql(out.toString(), List.copyOf(binds));
+    }
+
+    /**
+     * Distinct placeholder names used anywhere in the script, in order of first use.
+     */
+    public static List<String> names(String script) {
+        Set<String> names = new LinkedHashSet<>();
+        for (ScriptStatement st : ScriptSplitter.split(script)) {
+            if (st.kind() == ScriptStatement.Kind.COPY_IN || st.kind() == ScriptStatement.Kind.COPY_OUT) continue;
+            names.addAll(parse(st.sql()).bindOrder());
+        }
+        return new ArrayList<>(names);
+    }
+
+    private static boolean isNamedPlaceholder(String sql, int i) {
+        if (i + 1 >= sql.length() || !SqlLexer.isWordStart(sql.charAt(i + 1))) return false;
+        // "a::int" - the second colon of a cast; "arr[lo:hi]" - an array slice
+        if (i > 0 && (sql.charAt(i - 1) == ':' || SqlLexer.isWordChar(sql.charAt(i - 1)))) return false;
+        return true;
+    }
+}
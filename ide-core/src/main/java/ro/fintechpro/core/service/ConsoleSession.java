@@ -0,0 +1,134 @@
+package ro.fintechpro.core.service;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TransactionState;
+import ro.fintechpro.core.db.DataSourceManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A connection pinned to one console for the life of the tab, in manual-commit mode.
+ * SET commands, temp tables and open transactions carry over between runs.
+ * Runs on the same session are serialized.
+ */
+public class ConsoleSession implements AutoCloseable {
+
+    private static final long CLOSE_WAIT_SECONDS = 5;
+
+    private final String profileName;
+    private final Connection connection;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile long lastActivityMillis = System.currentTimeMillis();
+    private volatile boolean closed;
+
+    private ConsoleSession(String profileName, Connection connection) {
+        this.profileName = profileName;
+        this.connection = connection;
+    }
+
+    public static ConsoleSession open(String profileName) throws SQLException {
+        Connection conn = DataSourceManager.getInstance().openDedicatedConnection(profileName);
+        try {
+            conn.setAutoCommit(false);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return new ConsoleSession(profileName, conn);
+    }
+
+    public String getProfileName() { return profileName; }
+
+    public boolean isClosed() { return closed; }
+
+    /**
+     * True while the backend is inside a transaction block (including a failed one).
+     */
+    public boolean isInTransaction() {
+        return transactionState() != TransactionState.IDLE;
+    }
+
+    /**
+     * True when an error aborted the transaction; only a rollback gets the session going again.
+     */
+    public boolean isTransactionFailed() {
+        return transactionState() == TransactionState.FAILED;
+    }
+
+    private TransactionState transactionState() {
+        if (closed) return TransactionState.IDLE;
+        try {
+            return connection.unwrap(BaseConnection.class).getTransactionState();
+        } catch (SQLException e) {
+            return TransactionState.IDLE;
+        }
+    }
+
+    /**
+     * Time since the last statement, commit or rollback finished.
+     */
+    public long getIdleMillis() {
+        return lock.isLocked() ? 0 : System.currentTimeMillis() - lastActivityMillis;
+    }
+
+    public void commit() throws SQLException {
+        withConnection(conn -> {
+            conn.commit();
+            return null;
+        });
+    }
+
+    public void rollback() throws SQLException {
+        withConnection(conn -> {
+            conn.rollback();
+            return null;
+        });
+    }
+
+    interface SessionWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Runs work on the pinned connection, waiting for any run already in progress.
+     */
+    <T> T withConnection(SessionWork<T> work) throws SQLException {
+        lock.lock();
+        try {
+            if (closed) throw new SQLException("Session is closed.");
+            return work.run(connection);
+        } finally {
+            lastActivityMillis = System.currentTimeMillis();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels the running statement, if any, then rolls back anything still open and closes the connection.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true; // Runs waiting for the lock give up
+
+        boolean locked = false;
+        try {
+            if (lock.isLocked()) connection.unwrap(BaseConnection.class).cancelQuery();
+            // A statement that ignores the cancel must not keep the connection open forever
+            locked = lock.tryLock(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS);
+            if (!connection.isClosed()) {
+                if (locked) connection.rollback(); // Otherwise closing ends the transaction on the server
+                connection.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (locked) lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ro.fintechpro.core.service;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * A single running (or finished) execution started by {@link QueryExecutor#submit}.
+ * Cancellation first goes through {@link Statement#cancel()}; if the backend is still busy after
+ * {@link #CANCEL_GRACE_MILLIS}, it is cancelled server-side with pg_cancel_backend.
+ */
+public class ExecutionHandle {
+
+    public enum State { RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    static final long CANCEL_GRACE_MILLIS = 2000;
+
+    private final String sql;
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+    private final AtomicLong rowsFetched = new AtomicLong();
+    private final CompletableFuture<QueryExecutor.QueryResult> completion = new CompletableFuture<>();
+
+    private volatile boolean cacheHit;
+    private volatile int statementsDone;
+    private volatile int statementCount = 1;
+
+    private volatile State state = State.RUNNING;
+    private volatile boolean cancelRequested;
+    private volatile Statement statement;
+    private volatile int backendPid;
+    private final IntConsumer backendCanceller;
+
+    ExecutionHandle(String sql, IntConsumer backendCanceller) {
+        this.sql = sql;
+        this.backendCanceller = backendCanceller;
+    }
+
+    public String getSql() { return sql; }
+
+    public State getState() { return state; }
+
+    public boolean isRunning() { return state == State.RUNNING; }
+
+    public boolean isCancelRequested() { return cancelRequested; }
+
+    public long getRowsFetched() { return rowsFetched.get(); }
+
+    /**
+     * Script progress: statements finished so far, out of {@link #getStatementCount()}.
+     */
+    public int getStatementsDone() { return statementsDone; }
+
+    public int getStatementCount() { return statementCount; }
+
+    /**
+     * True when the result came from the client-side result cache instead of the server.
+     */
+    public boolean isCacheHit() { return cacheHit; }
+
+    public long getElapsedMillis() {
+        long end = state == State.RUNNING ? System.nanoTime() : endNanos;
+        return (end - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Completes with the result, or exceptionally with the SQLException that ended the run.
+     */
+    public CompletableFuture<QueryExecutor.QueryResult> getCompletion() { return completion; }
+
+    public void cancel() {
+        if (state != State.RUNNING || cancelRequested) return;
+        cancelRequested = true;
+        cancelStatement();
+
+        // Escalate if the statement did not let go (e.g. the cancel packet was lost or ignored)
+        Thread.ofVirtual().name("cancel-watchdog").start(() -> {
+            try {
+                Thread.sleep(CANCEL_GRACE_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Under the lock, so the connection cannot be detached (and lent to someone else) meanwhile
+            synchronized (this) {
+                if (state == State.RUNNING && backendPid != 0) backendCanceller.accept(backendPid);
+            }
+        });
+    }
+
+    private void cancelStatement() {
+        Statement s = statement;
+        if (s != null) {
+            try {
+                s.cancel();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // --- Called by the executor ---
+
+    void attach(Statement statement, int backendPid) {
+        this.statement = statement;
+        this.backendPid = backendPid;
+        if (cancelRequested) cancelStatement(); // Cancelled before the statement existed
+    }
+
+    /**
+     * Forgets the statement and backend before the connection goes back to the pool, so a late
+     * cancel cannot reach whatever the connection runs next.
+     */
+    synchronized void detach() {
+        statement = null;
+        backendPid = 0;
+    }
+
+    void rowsFetched(long rows) {
+        rowsFetched.set(rows);
+    }
+
+    void markCacheHit() {
+        cacheHit = true;
+    }
+
+    void statementProgress(int done, int count) {
+        statementCount = count;
+        statementsDone = done;
+    }
+
+    void complete(QueryExecutor.QueryResult result) {
+        finish(cancelRequested ? State.CANCELLED : State.COMPLETED);
+        completion.complete(result);
+    }
+
+    void fail(Throwable error) {
+        finish(cancelRequested ? State.CANCELLED : State.FAILED);
+        completion.completeExceptionally(error);
+    }
+
+    private void finish(State finalState) {
+        endNanos = System.nanoTime();
+        statement = null;
+        state = finalState;
+    }
+}
@@ -0,0 +1,223 @@
+package ro.fintechpro.core.service;
+
+import ro.fintechpro.core.service.LocalIndexService.Scored;
+import ro.fintechpro.core.service.LocalIndexService.SearchResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Searches the saved indexes of all connection profiles at once, without connecting to any of them.
+ * <p>
+ * Each profile's index file is opened on first use (all profiles in parallel) and kept in memory; it is
+ * read again only when the file changes. Loaded indexes are held up to a memory budget, dropping the
+ * least recently searched first. A profile can instead be backed by a live index (the one the open IDE
+ * keeps up to date), which is then searched in place of its file.
+ */
+public class GlobalSearchService {
+
+    public static final long DEFAULT_MEMORY_BUDGET = 512L * 1024 * 1024;
+
+    public record GlobalResult(String profile, SearchResult result) {}
+
+    /**
+     * @param unindexed profiles without a saved index (never opened since indexes are saved)
+     */
+    public record Outcome(String query, List<GlobalResult> results, int profiles, int unindexed, double millis) {}
+
+    // A loaded file, with the attributes it had when read and the heap it takes
+    private record Cached(LocalIndexService index, long modified, long size, long bytes) {}
+
+    private final WorkspaceService workspaceService;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // Access-ordered, guarded by itself. A profile's file is read once even when several searches want it:
+    // the first one puts the future, the others wait on it
+    private final Map<String, CompletableFuture<Cached>> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, LocalIndexService> live = new ConcurrentHashMap<>();
+    private volatile long memoryBudgetBytes = DEFAULT_MEMORY_BUDGET;
+
+    public GlobalSearchService(WorkspaceService workspaceService) {
+        this.workspaceService = workspaceService;
+    }
+
+    /**
+     * Searches {@code index} for {@code profile} instead of its saved file.
+     */
+    public void setLiveIndex(String profile, LocalIndexService index) {
+        live.put(profile, index);
+        synchronized (cache) {
+            cache.remove(profile);
+        }
+    }
+
+    public long getMemoryBudgetBytes() { return memoryBudgetBytes; }
+
+    public void setMemoryBudgetBytes(long bytes) { this.memoryBudgetBytes = bytes; }
+
+    /**
+     * Opens the indexes of the given profiles ahead of the first search.
+     */
+    public void warmUp(Collection<String> profiles) {
+        List<CompletableFuture<LocalIndexService>> loads = new ArrayList<>();
+        for (String profile : profiles) {
+            loads.add(CompletableFuture.supplyAsync(() -> indexOf(profile), executor));
+        }
+        CompletableFuture.allOf(loads.toArray(CompletableFuture[]::new)).join();
+    }
+
+    public Outcome search(List<String> profiles, String query, int limit) {
+        return search(profiles, query, limit, () -> false);
+    }
+
+    /**
+     * Searches every profile in parallel and merges the results by score; ties keep the order of
+     * {@code profiles}, then each profile's own ranking. Gives up (with no results) once
+     * {@code cancelled} returns true.
+     */
+    public Outcome search(List<String> profiles, String query, int limit, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        if (query == null || query.isBlank()) return new Outcome(query, List.of(), profiles.size(), 0, 0);
+
+        // 1. Forget profiles that are no longer listed
+        synchronized (cache) {
+            cache.keySet().retainAll(new HashSet<>(profiles));
+        }
+
+        // 2. One search per profile, each on its own virtual thread. Once any profile has a full top list,
+        //    the others skip names scoring below its weakest entry
+        AtomicInteger floor = new AtomicInteger(-1);
+        List<CompletableFuture<List<Scored>>> searches = new ArrayList<>(profiles.size());
+        for (String profile : profiles) {
+            searches.add(CompletableFuture.supplyAsync(() -> {
+                LocalIndexService index = indexOf(profile);
+                return index == null ? null : index.searchScored(query, limit, cancelled, floor);
+            }, executor));
+        }
+
+        // 3. Merge: a k-way pick of the best head, since each list is already sorted by score
+        List<List<Scored>> perProfile = new ArrayList<>(profiles.size());
+        int unindexed = 0;
+        for (var search : searches) {
+            List<Scored> found = search.join();
+            if (found == null) unindexed++;
+            perProfile.add(found != null ? found : List.of());
+        }
+        if (cancelled.getAsBoolean()) return new Outcome(query, List.of(), profiles.size(), unindexed, 0);
+
+        int[] heads = new int[perProfile.size()];
+        List<GlobalResult> merged = new ArrayList<>(limit);
+        while (merged.size() < limit) {
+            int bestProfile = -1;
+            int bestScore = Integer.MIN_VALUE;
+            for (int p = 0; p < perProfile.size(); p++) {
+                List<Scored> found = perProfile.get(p);
+                if (heads[p] < found.size() && found.get(heads[p]).score() > bestScore) {
+                    bestProfile = p;
+                    bestScore = found.get(heads[p]).score();
+                }
+            }
+            if (bestProfile < 0) break;
+            merged.add(new GlobalResult(profiles.get(bestProfile), perProfile.get(bestProfile).get(heads[bestProfile]++).result()));
+        }
+        return new Outcome(query, merged, profiles.size(), unindexed, (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    /**
+     * Heap held by the indexes loaded from files (live indexes are not counted).
+     */
+    public long getMemoryBytes() {
+        synchronized (cache) {
+            long bytes = 0;
+            for (CompletableFuture<Cached> load : cache.values()) {
+                Cached c = load.getNow(null);
+                if (c != null) bytes += c.bytes();
+            }
+            return bytes;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The live index of the profile, else its saved one (read again if the file changed), else null.
+     */
+    private LocalIndexService indexOf(String profile) {
+        LocalIndexService liveIndex = live.get(profile);
+        if (liveIndex != null) return liveIndex;
+
+        // 1. The file as it is now
+        Path file = workspaceService.getSearchIndexFile(profile);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            synchronized (cache) {
+                cache.remove(profile); // No index saved (yet)
+            }
+            return null;
+        }
+        long modified = attrs.lastModifiedTime().toMillis();
+
+        // 2. Reuse a load of the same file (finished or not), else start one
+        CompletableFuture<Cached> load;
+        boolean mine = false;
+        synchronized (cache) {
+            load = cache.get(profile);
+            Cached done = load != null ? load.getNow(null) : null;
+            if (load == null || (load.isDone() && (done == null || done.modified() != modified || done.size() != attrs.size()))) {
+                load = new CompletableFuture<>();
+                cache.put(profile, load);
+                mine = true;
+            }
+        }
+        if (mine) {
+            Cached loaded = null;
+            try {
+                LocalIndexService index = new LocalIndexService();
+                if (index.load(file) > 0) loaded = new Cached(index, modified, attrs.size(), index.getMemoryBytes());
+            } finally {
+                if (loaded == null) {
+                    synchronized (cache) {
+                        cache.remove(profile, load);
+                    }
+                }
+                load.complete(loaded);
+            }
+            if (loaded != null) trimToBudget(profile);
+        }
+        Cached cached = load.join();
+        return cached != null ? cached.index() : null;
+    }
+
+    // Drops the least recently searched indexes until the loaded ones fit the budget; keep is spared
+    private void trimToBudget(String keep) {
+        synchronized (cache) {
+            long bytes = getMemoryBytes();
+            Iterator<Map.Entry<String, CompletableFuture<Cached>>> it = cache.entrySet().iterator();
+            while (bytes > memoryBudgetBytes && it.hasNext()) {
+                Map.Entry<String, CompletableFuture<Cached>> eldest = it.next();
+                Cached c = eldest.getValue().getNow(null);
+                if (c == null || eldest.getKey().equals(keep)) continue; // Still loading, or just loaded
+                bytes -= c.bytes();
+                it.remove();
+            }
+        }
+    }
+}
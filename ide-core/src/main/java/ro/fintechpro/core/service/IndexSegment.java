@@ -0,0 +1,168 @@
+package ro.fintechpro.core.service;
+
+import ro.fintechpro.core.service.LocalIndexService.SearchResult;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The search entries of one schema: names in a {@link TrigramIndex}, plus per entry a one-byte kind and
+ * the index of its parent in a small pool (tables, for columns, indexes and constraints).
+ * The fingerprint is the schema's fingerprint when the entries were read, or null if unknown.
+ */
+final class IndexSegment {
+
+    // Kinds ("TABLE", "COLUMN", ...) are shared by all segments and referenced by a byte code
+    private static final List<String> KINDS = new ArrayList<>();
+
+    final String schema;
+    String fingerprint; // Guarded by the owning LocalIndexService's lock
+    final TrigramIndex index;
+    private byte[] kindCodes;
+    private int[] parentRefs;
+    private final List<String> parentPool = new ArrayList<>();
+    private final Map<String, Integer> parentIds = new HashMap<>();
+    private final Map<String, Byte> kindCache = new HashMap<>(); // Avoids the shared table's monitor per entry
+
+    IndexSegment(String schema, String fingerprint) {
+        this(schema, fingerprint, new TrigramIndex(), new byte[64], new int[64]);
+    }
+
+    private IndexSegment(String schema, String fingerprint, TrigramIndex index, byte[] kindCodes, int[] parentRefs) {
+        this.schema = schema;
+        this.fingerprint = fingerprint;
+        this.index = index;
+        this.kindCodes = kindCodes;
+        this.parentRefs = parentRefs;
+    }
+
+    void add(SearchResult item) {
+        int id = index.add(item.name());
+        if (id == kindCodes.length) {
+            kindCodes = Arrays.copyOf(kindCodes, id * 2);
+            parentRefs = Arrays.copyOf(parentRefs, id * 2);
+        }
+        kindCodes[id] = kindCache.computeIfAbsent(item.type(), IndexSegment::kindCode);
+        parentRefs[id] = item.parent() == null ? -1 : parentRef(item.parent());
+    }
+
+    SearchResult result(int id) {
+        int parent = parentRefs[id];
+        return new SearchResult(index.name(id), kindName(kindCodes[id]), schema, parent < 0 ? null : parentPool.get(parent));
+    }
+
+    long estimateBytes() {
+        long bytes = index.estimateBytes() + 16L + kindCodes.length + 16L + 4L * parentRefs.length;
+        for (String p : parentPool) bytes += 2 * (40L + p.length()); // Pool entry plus map key
+        return bytes;
+    }
+
+    private int parentRef(String parent) {
+        return parentIds.computeIfAbsent(parent, p -> {
+            parentPool.add(p);
+            return parentPool.size() - 1;
+        });
+    }
+
+    private static synchronized byte kindCode(String kind) {
+        int code = KINDS.indexOf(kind);
+        if (code < 0) {
+            if (KINDS.size() == 255) throw new IllegalStateException("Too many object kinds");
+            KINDS.add(kind);
+            code = KINDS.size() - 1;
+        }
+        return (byte) code;
+    }
+
+    private static synchronized String kindName(byte code) {
+        return KINDS.get(code & 0xFF);
+    }
+
+    // --- Serialization ---
+    //
+    // index        see TrigramIndex#writeTo
+    // kinds        int count, count x string (the section's own codes, remapped when read)
+    // kindCodes    size x byte
+    // parents      int count, count x string, then size x int parentRef
+    // strings are int length (-1 for null) plus UTF-16 chars
+
+    int byteSize() {
+        int size = index.size();
+        int bytes = index.byteSize() + 4 + size + 4 + 4 * size;
+        for (String kind : localKinds()) bytes += stringBytes(kind);
+        for (String p : parentPool) bytes += stringBytes(p);
+        return bytes;
+    }
+
+    void writeTo(ByteBuffer out) {
+        int size = index.size();
+        index.writeTo(out);
+
+        List<String> kinds = localKinds();
+        byte[] toLocal = new byte[256];
+        out.putInt(kinds.size());
+        for (int k = 0; k < kinds.size(); k++) {
+            putString(out, kinds.get(k));
+            toLocal[kindCode(kinds.get(k)) & 0xFF] = (byte) k;
+        }
+        for (int id = 0; id < size; id++) out.put(toLocal[kindCodes[id] & 0xFF]);
+
+        out.putInt(parentPool.size());
+        for (String p : parentPool) putString(out, p);
+        out.asIntBuffer().put(parentRefs, 0, size);
+        out.position(out.position() + 4 * size);
+    }
+
+    static IndexSegment readFrom(String schema, String fingerprint, ByteBuffer in) {
+        TrigramIndex index = TrigramIndex.readFrom(in);
+        int size = index.size();
+        IndexSegment segment = new IndexSegment(schema, fingerprint, index,
+                new byte[Math.max(size, 16)], new int[Math.max(size, 16)]);
+
+        byte[] remap = new byte[in.getInt()];
+        for (int k = 0; k < remap.length; k++) remap[k] = kindCode(getString(in));
+        for (int id = 0; id < size; id++) segment.kindCodes[id] = remap[in.get() & 0xFF];
+
+        int parents = in.getInt();
+        for (int p = 0; p < parents; p++) segment.parentRef(getString(in));
+        in.asIntBuffer().get(segment.parentRefs, 0, size);
+        in.position(in.position() + 4 * size);
+        return segment;
+    }
+
+    private List<String> localKinds() {
+        boolean[] used = new boolean[256];
+        for (int id = 0; id < index.size(); id++) used[kindCodes[id] & 0xFF] = true;
+        List<String> kinds = new ArrayList<>();
+        for (int code = 0; code < used.length; code++) {
+            if (used[code]) kinds.add(kindName((byte) code));
+        }
+        return kinds;
+    }
+
+    static int stringBytes(String s) {
+        return 4 + (s == null ? 0 : 2 * s.length());
+    }
+
+    static void putString(ByteBuffer out, String s) {
+        if (s == null) {
+            out.putInt(-1);
+            return;
+        }
+        out.putInt(s.length());
+        for (int i = 0; i < s.length(); i++) out.putChar(s.charAt(i));
+    }
+
+    static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        char[] c = new char[length];
+        in.asCharBuffer().get(c);
+        in.position(in.position() + 2 * length);
+        return new String(c);
+    }
+}
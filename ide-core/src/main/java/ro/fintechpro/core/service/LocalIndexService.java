@@ -1,101 +1,265 @@
 package ro.fintechpro.core.service;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
 
+/**
+ * In-memory search over object names: one {@link IndexSegment} per schema, whose names sit in a
+ * char arena and whose kinds and parents are small codes, so no record is kept per entry.
+ * <p>
+ * Segments are built without holding the lock and swapped in whole, so schemas can be indexed in
+ * parallel while searches keep running against the previous segments. Each segment remembers the
+ * schema fingerprint it was built from; {@link #save(Path)} and {@link #load(Path)} keep the index
+ * across restarts, so only schemas whose fingerprint moved need indexing again.
+ */
 public class LocalIndexService {
 
-    // Runs completely in memory (super fast, cleared on restart)
-    // If you want persistence, change to "jdbc:h2:./pgdev_index"
-    private static final String JDBC_URL = "jdbc:h2:mem:pgdev_index;DB_CLOSE_DELAY=-1";
+    public static final int MAX_RESULTS = 50;
 
     public record SearchResult(String name, String type, String schema, String parent) {}
 
-    public LocalIndexService() {
-        initDb();
+    record Scored(SearchResult result, int score) {}
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IndexSegment> segments = new LinkedHashMap<>();
+    private boolean modified; // Since the last save or load
+    private final Object saveLock = new Object(); // One writer of the file at a time
+
+    public void clearIndex() {
+        lock.writeLock().lock();
+        try {
+            segments.clear();
+            modified = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
-    private void initDb() {
-        try (Connection conn = DriverManager.getConnection(JDBC_URL)) {
-            try (Statement stmt = conn.createStatement()) {
-                // Create a fast table for searching
-                stmt.execute("CREATE TABLE IF NOT EXISTS search_index (" +
-                        "name VARCHAR, " +
-                        "type VARCHAR, " +
-                        "schema VARCHAR, " +
-                        "parent VARCHAR)");
+    public void removeSchema(String schema) {
+        lock.writeLock().lock();
+        try {
+            if (segments.remove(schema) != null) modified = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 
-                // Index specifically for the 'name' column for instant search
-                stmt.execute("CREATE INDEX IF NOT EXISTS idx_name ON search_index(name)");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+    /**
+     * Drops the segments of schemas that are not listed.
+     */
+    public void retainSchemas(Collection<String> schemas) {
+        lock.writeLock().lock();
+        try {
+            if (segments.keySet().retainAll(new HashSet<>(schemas))) modified = true;
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
-    public void clearIndex() {
-        try (Connection conn = DriverManager.getConnection(JDBC_URL);
-             Statement stmt = conn.createStatement()) {
-            stmt.execute("TRUNCATE TABLE search_index");
-        } catch (SQLException e) {
-            e.printStackTrace();
+    /**
+     * Schemas (of those given, with their current fingerprints) whose segment is missing,
+     * or was built from another or an unknown fingerprint.
+     */
+    public Set<String> staleSchemas(Map<String, String> fingerprints) {
+        lock.readLock().lock();
+        try {
+            Set<String> stale = new LinkedHashSet<>();
+            fingerprints.forEach((schema, fingerprint) -> {
+                IndexSegment segment = segments.get(schema);
+                if (segment == null || fingerprint == null || !fingerprint.equals(segment.fingerprint)) stale.add(schema);
+            });
+            return stale;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the entries of the given schemas (mapped to the fingerprint the items were read at)
+     * with {@code items}, which must all belong to them. A listed schema without items gets an empty
+     * segment, so it is not stale next time. The new segments are built before the lock is taken.
+     */
+    public void replaceSchemas(Map<String, String> fingerprints, List<SearchResult> items) {
+        Map<String, IndexSegment> built = new HashMap<>();
+        groupBySchema(items).forEach((schema, list) ->
+                built.put(schema, buildSegment(schema, fingerprints.get(schema), list)));
+
+        lock.writeLock().lock();
+        try {
+            fingerprints.forEach((schema, fingerprint) ->
+                    segments.put(schema, built.getOrDefault(schema, new IndexSegment(schema, fingerprint))));
+            modified = true;
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
-    // Batch insert for performance
+    /**
+     * Adds entries, appending to the segments of schemas that are already indexed.
+     */
     public void indexItems(List<SearchResult> items) {
-        String sql = "INSERT INTO search_index (name, type, schema, parent) VALUES (?, ?, ?, ?)";
+        lock.writeLock().lock();
+        try {
+            groupBySchema(items).forEach((schema, list) -> {
+                IndexSegment segment = segments.computeIfAbsent(schema, k -> new IndexSegment(k, null));
+                // Appended entries are not covered by the segment's fingerprint, so it becomes unknown
+                segment.fingerprint = null;
+                for (SearchResult item : list) segment.add(item);
+            });
+            modified = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<SearchResult> search(String query) {
+        return search(query, MAX_RESULTS);
+    }
+
+    /**
+     * Case-insensitive match on names, best first: exact, prefix, start of a word
+     * (snake_case or camelCase), word initials ("ua" for user_accounts), then any substring.
+     * One- and two-character queries only match word starts and initials.
+     */
+    public List<SearchResult> search(String query, int limit) {
+        return search(query, limit, () -> false);
+    }
+
+    /**
+     * As {@link #search(String, int)}, giving up (with an empty list) once {@code cancelled} returns true.
+     */
+    public List<SearchResult> search(String query, int limit, BooleanSupplier cancelled) {
+        List<Scored> scored = searchScored(query, limit, cancelled);
+        List<SearchResult> results = new ArrayList<>(scored.size());
+        for (Scored s : scored) results.add(s.result());
+        return results;
+    }
 
-        try (Connection conn = DriverManager.getConnection(JDBC_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    /**
+     * As {@link #search(String, int, BooleanSupplier)}, with the scores, so results of several indexes can be merged.
+     */
+    List<Scored> searchScored(String query, int limit, BooleanSupplier cancelled) {
+        return searchScored(query, limit, cancelled, null);
+    }
 
-            conn.setAutoCommit(false); // Start transaction
+    /**
+     * @param sharedFloor shared by searches of other indexes whose top {@code limit} results are merged
+     *                    with these, so each can skip names that cannot make the merged list; or null
+     */
+    List<Scored> searchScored(String query, int limit, BooleanSupplier cancelled, AtomicInteger sharedFloor) {
+        if (query == null) return List.of();
+        lock.readLock().lock();
+        try {
+            // One heap across all segments, so a full heap prunes the later segments too
+            IndexSegment[] order = segments.values().toArray(IndexSegment[]::new);
+            TrigramIndex.TopK best = new TrigramIndex.TopK(limit, sharedFloor);
+            for (int s = 0; s < order.length; s++) {
+                if (!order[s].index.search(query, s, best, cancelled)) return List.of();
+            }
 
-            for (SearchResult item : items) {
-                pstmt.setString(1, item.name());
-                pstmt.setString(2, item.type());
-                pstmt.setString(3, item.schema());
-                pstmt.setString(4, item.parent());
-                pstmt.addBatch();
+            long[] ranked = best.sortedDescending();
+            List<Scored> results = new ArrayList<>(ranked.length);
+            for (long packed : ranked) {
+                SearchResult result = order[TrigramIndex.TopK.segmentOf(packed)].result(TrigramIndex.TopK.idOf(packed));
+                results.add(new Scored(result, TrigramIndex.TopK.scoreOf(packed)));
             }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-            pstmt.executeBatch();
-            conn.commit(); // Commit all at once
+    public int getEntryCount() {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (IndexSegment s : segments.values()) count += s.index.size();
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+    /**
+     * Approximate heap used by the index.
+     */
+    public long getMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (IndexSegment s : segments.values()) bytes += s.estimateBytes();
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
-    public List<SearchResult> search(String query) {
-        List<SearchResult> results = new ArrayList<>();
-        // Use ILIKE for case-insensitive search in H2
-        String sql = "SELECT * FROM search_index WHERE name ILIKE ? LIMIT 50";
-
-        try (Connection conn = DriverManager.getConnection(JDBC_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, "%" + query + "%");
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    results.add(new SearchResult(
-                            rs.getString("name"),
-                            rs.getString("type"),
-                            rs.getString("schema"),
-                            rs.getString("parent")
-                    ));
-                }
+    public long getBytesPerEntry() {
+        int entries = getEntryCount();
+        return entries == 0 ? 0 : getMemoryBytes() / entries;
+    }
+
+    /**
+     * Writes the index if it changed since it was last saved or loaded.
+     * @return whether the file was written.
+     */
+    public boolean save(Path file) throws IOException {
+        synchronized (saveLock) {
+            // The read lock keeps appends out while the segments are serialized
+            lock.readLock().lock();
+            try {
+                if (!modified) return false;
+                SearchIndexFile.write(segments.values(), file);
+                modified = false;
+                return true;
+            } finally {
+                lock.readLock().unlock();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return results;
     }
-}
\ No newline at end of file
+
+    /**
+     * Replaces the whole index with the one saved in {@code file} (nothing, if it is missing or unreadable).
+     * @return the number of schemas loaded.
+     */
+    public int load(Path file) {
+        List<IndexSegment> loaded = SearchIndexFile.read(file);
+        lock.writeLock().lock();
+        try {
+            segments.clear();
+            for (IndexSegment segment : loaded) segments.put(segment.schema, segment);
+            modified = false;
+            return loaded.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static IndexSegment buildSegment(String schema, String fingerprint, List<SearchResult> items) {
+        IndexSegment segment = new IndexSegment(schema, fingerprint);
+        for (SearchResult item : items) segment.add(item);
+        return segment;
+    }
+
+    private static Map<String, List<SearchResult>> groupBySchema(List<SearchResult> items) {
+        Map<String, List<SearchResult>> bySchema = new LinkedHashMap<>();
+        for (SearchResult item : items) {
+            if (item.name() == null) continue;
+            bySchema.computeIfAbsent(item.schema(), k -> new ArrayList<>()).add(item);
+        }
+        return bySchema;
+    }
+}
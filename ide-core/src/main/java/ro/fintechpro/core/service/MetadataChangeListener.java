@@ -0,0 +1,120 @@
+package ro.fintechpro.core.service;
+
+import ro.fintechpro.core.db.DataSourceManager;
+import ro.fintechpro.core.model.DatabaseCache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the metadata model current from the DDL notifications sent by the event triggers
+ * that {@link MetadataService#installChangeTrigger()} installs. Notifications are debounced,
+ * so a migration script touching hundreds of objects costs one incremental introspection.
+ */
+public class MetadataChangeListener {
+
+    public static final long DEBOUNCE_MILLIS = 500;
+
+    /**
+     * One applied batch of DDL.
+     * @param schemas  schemas whose fingerprint moved or that the DDL named (may be empty for e.g. GRANT)
+     * @param commands the raw payloads: command_tag|schema|object_identity
+     */
+    public record Change(Set<String> schemas, List<String> commands, DatabaseCache cache) {}
+
+    private final DataSourceManager dbManager;
+    private final MetadataService metaService;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "metadata-listener");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final List<String> pending = new ArrayList<>();
+    private ScheduledFuture<?> flush;
+    private DataSourceManager.NotificationListener listener;
+    private String profileName;
+    private Consumer<Change> onChange;
+
+    public MetadataChangeListener(DataSourceManager dbManager, MetadataService metaService) {
+        this.dbManager = dbManager;
+        this.metaService = metaService;
+    }
+
+    public synchronized void start(String profileName, Consumer<Change> onChange) {
+        stop();
+        this.profileName = profileName;
+        this.onChange = onChange;
+        this.listener = dbManager.listen(profileName, MetadataService.DDL_CHANNEL, this::onNotification);
+    }
+
+    public synchronized void stop() {
+        if (listener != null) {
+            listener.stop();
+            listener = null;
+        }
+        if (flush != null) {
+            flush.cancel(false);
+            flush = null;
+        }
+        pending.clear();
+    }
+
+    public synchronized boolean isRunning() {
+        return listener != null;
+    }
+
+    private synchronized void onNotification(String payload) {
+        if (listener == null) return;
+        pending.add(payload == null ? "" : payload);
+        // Restart the quiet period on every notification
+        if (flush != null) flush.cancel(false);
+        flush = scheduler.schedule(this::apply, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void apply() {
+        List<String> commands;
+        Consumer<Change> callback;
+        String profile;
+        synchronized (this) {
+            if (listener == null || pending.isEmpty()) return;
+            commands = new ArrayList<>(pending);
+            pending.clear();
+            flush = null;
+            callback = onChange;
+            profile = profileName;
+        }
+
+        // Other refreshes (manual, startup) wait until this one has been applied
+        metaService.getRefreshLock().lock();
+        try {
+            // 1. Incremental introspection: only schemas whose fingerprint moved are reloaded
+            DatabaseCache before = metaService.getActiveCache();
+            DatabaseCache after = metaService.introspect(profile, before);
+
+            // 2. Report the schemas that changed, plus the ones named in the payloads. The payloads count even
+            //    if no fingerprint moved: they are what the server says was touched
+            Set<String> schemas = new LinkedHashSet<>(MetadataService.changedSchemas(before, after));
+            for (String command : commands) {
+                String[] parts = command.split("\\|", 3);
+                if (parts.length > 1 && !parts[1].isEmpty() && after.schemas().containsKey(parts[1])) {
+                    schemas.add(parts[1]);
+                    metaService.invalidateTableDetails(parts[1]);
+                }
+            }
+            if (after == before && schemas.isEmpty()) return; // e.g. GRANT: nothing to re-read
+            callback.accept(new Change(schemas, commands, after));
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            metaService.getRefreshLock().unlock();
+        }
+    }
+}
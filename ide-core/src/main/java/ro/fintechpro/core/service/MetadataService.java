@@ -5,19 +5,34 @@ import ro.fintechpro.core.model.DatabaseCache;
 import ro.fintechpro.core.model.DatabaseCache.SchemaCache;
 import ro.fintechpro.core.model.DatabaseCache.TableCache;
 
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class MetadataService {
 
     private final DataSourceManager dbManager;
-    private DatabaseCache activeCache; // <--- Stores the in-memory model
+    private volatile DatabaseCache activeCache; // <--- Stores the in-memory model
+    private final ReentrantLock refreshLock = new ReentrantLock();
 
     public MetadataService(DataSourceManager dbManager) {
         this.dbManager = dbManager;
@@ -26,42 +41,237 @@ public class MetadataService {
     // --- New Introspection Logic ---
 
     public DatabaseCache introspect(String connectionName, DatabaseCache previousCache) throws Exception {
-        Map<String, SchemaCache> newSchemasMap = new HashMap<>();
-
-        // 1. Get list of schemas from DB
-        List<String> currentSchemaNames = fetchSchemasFromDb();
-
-        for (String schemaName : currentSchemaNames) {
-            // 2. Fetch basic object lists
-            List<TableCache> currentTables = fetchTablesFromDb(schemaName);
-            List<String> currentFunctions = fetchFunctionsFromDb(schemaName);
-            List<String> currentProcedures = fetchProceduresFromDb(schemaName);
-
-            // 3. Check for changes (Reuse old cache object if identical)
-            SchemaCache previousSchema = (previousCache != null && previousCache.schemas() != null)
-                    ? previousCache.schemas().get(schemaName)
-                    : null;
+        return introspect(connectionName, previousCache, status -> {});
+    }
 
-            if (previousSchema != null && isSchemaUnchanged(previousSchema, currentTables, currentFunctions, currentProcedures)) {
+    /**
+     * @param progress Receives status text as schemas are loaded; called from worker threads.
+     */
+    public DatabaseCache introspect(String connectionName, DatabaseCache previousCache,
+                                    Consumer<String> progress) throws Exception {
+        Map<String, SchemaCache> newSchemasMap = new LinkedHashMap<>();
+        Map<String, SchemaCache> previousSchemas = (previousCache != null && previousCache.schemas() != null)
+                ? previousCache.schemas()
+                : Map.of();
+
+        // 1. Load the schemas (set-based on pg_catalog, only the ones whose fingerprint moved;
+        //    per schema on old servers)
+        progress.accept("Reading catalog...");
+        Map<String, SchemaCache> fetched = fetchCatalogFromDb(previousSchemas, progress);
+        if (fetched == null) fetched = fetchPerSchemaFromDb(progress);
+
+        boolean changed = fetched.size() != previousSchemas.size();
+        for (SchemaCache current : fetched.values()) {
+            String schemaName = current.name();
+            SchemaCache previousSchema = previousSchemas.get(schemaName);
+
+            // 2. Check for changes (Reuse old cache object if identical)
+            if (previousSchema == current) {
                 newSchemasMap.put(schemaName, previousSchema);
+            } else if (previousSchema != null && isSchemaUnchanged(previousSchema, current.tables(), current.functions(), current.procedures())) {
+                // Same objects, the rows were only touched (grants, comments ...): keep the lists, take the new fingerprint
+                newSchemasMap.put(schemaName, new SchemaCache(schemaName, previousSchema.tables(),
+                        previousSchema.functions(), previousSchema.procedures(), current.fingerprint()));
+                changed |= !Objects.equals(previousSchema.fingerprint(), current.fingerprint());
             } else {
-                newSchemasMap.put(schemaName, new SchemaCache(schemaName, currentTables, currentFunctions, currentProcedures));
+                newSchemasMap.put(schemaName, current);
+                changed = true;
             }
         }
 
-        // 4. Update Internal State
-        this.activeCache = new DatabaseCache(connectionName, System.currentTimeMillis(), newSchemasMap);
+        // 3. Cached column/index details of changed schemas are stale now
+        invalidateChangedDetails(previousSchemas, newSchemasMap);
+
+        // 4. Update Internal State (the previous cache itself when nothing changed, so callers can skip saving)
+        this.activeCache = changed || previousCache == null
+                ? new DatabaseCache(connectionName, System.currentTimeMillis(), newSchemasMap)
+                : previousCache;
         return this.activeCache;
     }
 
-    // Helper: Detect changes
+    /**
+     * The model the last introspection produced (null before the first one).
+     */
+    public DatabaseCache getActiveCache() {
+        return activeCache;
+    }
+
+    /**
+     * Held by whoever introspects and then applies the result (saves it, re-indexes, redraws), from the
+     * introspection until the apply is done, so an older model is never applied over a newer one.
+     */
+    public ReentrantLock getRefreshLock() {
+        return refreshLock;
+    }
+
+    /**
+     * Serves a previously saved model (possibly stale) until the next introspection replaces it.
+     */
+    public void setActiveCache(DatabaseCache cache) {
+        this.activeCache = cache;
+    }
+
+    // --- Native introspection: three catalog queries on one connection ---
+
+    // One row per schema: row count plus an order-independent hash over the (key, xmin) of its relations
+    // (materialized views included), their columns and constraints, its indexes and routines. Any create,
+    // drop, rename or ALTER rewrites one of these rows and moves the hash; column and constraint changes
+    // (RENAME COLUMN, SET NOT NULL, DROP COLUMN ...) only touch pg_attribute / pg_constraint.
+    private static final String FINGERPRINTS_SQL = """
+            SELECT n.nspname,
+                   count(o.h) || ':' || coalesce(sum(o.h), 0)
+            FROM pg_catalog.pg_namespace n
+            LEFT JOIN (
+                SELECT c.relnamespace AS nsp, hashtext(c.oid::text || '/' || c.xmin::text) AS h
+                FROM pg_catalog.pg_class c WHERE c.relkind IN ('r', 'p', 'v', 'm', 'i', 'I')
+                UNION ALL
+                SELECT c.relnamespace, hashtext(a.attrelid::text || '.' || a.attnum::text || '/' || a.xmin::text)
+                FROM pg_catalog.pg_attribute a
+                JOIN pg_catalog.pg_class c ON c.oid = a.attrelid
+                WHERE c.relkind IN ('r', 'p', 'v', 'm') AND a.attnum > 0
+                UNION ALL
+                SELECT k.connamespace, hashtext(k.oid::text || '/' || k.xmin::text) FROM pg_catalog.pg_constraint k
+                UNION ALL
+                SELECT p.pronamespace, hashtext(p.oid::text || '/' || p.xmin::text)
+                FROM pg_catalog.pg_proc p WHERE p.prokind IN ('f', 'p')
+            ) o ON o.nsp = n.oid
+            WHERE n.nspname <> 'information_schema' AND n.nspname NOT LIKE 'pg\\_%'
+            GROUP BY n.nspname
+            ORDER BY n.nspname""";
+
+    // Filled in with one of the two schema filters below
+    private static final String ALL_SCHEMAS = "n.nspname <> 'information_schema' AND n.nspname NOT LIKE 'pg\\_%'";
+    private static final String LISTED_SCHEMAS = "n.nspname = ANY (?)";
+
+    private static final String RELATIONS_SQL = """
+            SELECT n.nspname, c.relname, c.relkind
+            FROM pg_catalog.pg_class c
+            JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+            WHERE c.relkind IN ('r', 'p', 'v') AND %s
+            ORDER BY n.nspname, c.relname""";
+
+    // prokind: 'f' function, 'p' procedure (aggregates and window functions are left out)
+    private static final String ROUTINES_SQL = """
+            SELECT n.nspname, p.proname, p.prokind
+            FROM pg_catalog.pg_proc p
+            JOIN pg_catalog.pg_namespace n ON n.oid = p.pronamespace
+            WHERE p.prokind IN ('f', 'p') AND %s
+            ORDER BY n.nspname, p.proname""";
+
+    /**
+     * Fingerprints every schema in one query and loads relations and routines only for the schemas
+     * whose fingerprint differs from the previous cache; the others are returned as the previous objects.
+     * @return the schemas by name, or null if the server predates pg_proc.prokind (PostgreSQL 11).
+     */
+    private Map<String, SchemaCache> fetchCatalogFromDb(Map<String, SchemaCache> previous,
+                                                        Consumer<String> progress) throws Exception {
+        try (Connection conn = dbManager.getConnection()) {
+            if (conn.getMetaData().getDatabaseMajorVersion() < 11) return null;
+
+            // 1. Fingerprints
+            Map<String, SchemaCache> schemas = new LinkedHashMap<>();
+            List<String> stale = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(FINGERPRINTS_SQL)) {
+                while (rs.next()) {
+                    String name = rs.getString(1);
+                    String fingerprint = rs.getString(2);
+                    SchemaCache old = previous.get(name);
+                    if (old != null && fingerprint.equals(old.fingerprint())) {
+                        schemas.put(name, old);
+                    } else {
+                        schemas.put(name, new SchemaCache(name, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), fingerprint));
+                        stale.add(name);
+                    }
+                }
+            }
+            if (stale.isEmpty()) {
+                progress.accept("Catalog unchanged (" + schemas.size() + " schemas).");
+                return schemas;
+            }
+            progress.accept("Loading " + stale.size() + " of " + schemas.size() + " schemas...");
+
+            // 2. Objects of the stale schemas
+            boolean all = stale.size() == schemas.size();
+            Array staleNames = all ? null : conn.createArrayOf("text", stale.toArray());
+            try (PreparedStatement ps = conn.prepareStatement(RELATIONS_SQL.formatted(all ? ALL_SCHEMAS : LISTED_SCHEMAS))) {
+                if (!all) ps.setArray(1, staleNames);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        SchemaCache sc = schemas.get(rs.getString(1));
+                        if (sc == null || sc == previous.get(sc.name())) continue;
+                        String type = "v".equals(rs.getString(3)) ? "VIEW" : "TABLE";
+                        sc.tables().add(new TableCache(rs.getString(2), type));
+                    }
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(ROUTINES_SQL.formatted(all ? ALL_SCHEMAS : LISTED_SCHEMAS))) {
+                if (!all) ps.setArray(1, staleNames);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        SchemaCache sc = schemas.get(rs.getString(1));
+                        if (sc == null || sc == previous.get(sc.name())) continue;
+                        if ("p".equals(rs.getString(3))) sc.procedures().add(rs.getString(2));
+                        else sc.functions().add(rs.getString(2));
+                    }
+                }
+            }
+            progress.accept("Loaded " + stale.size() + " schemas from the catalog.");
+            return schemas;
+        }
+    }
+
+    /**
+     * Generic DatabaseMetaData path: three calls per schema, with schemas fanned out over virtual threads.
+     * At most pool size - 1 schemas are loaded at once, so consoles still get a connection.
+     */
+    private Map<String, SchemaCache> fetchPerSchemaFromDb(Consumer<String> progress) throws Exception {
+        List<String> names = fetchSchemasFromDb();
+        Semaphore permits = new Semaphore(Math.max(1, dbManager.getMaxPoolSize() - 1));
+        AtomicInteger done = new AtomicInteger();
+
+        Map<String, Future<SchemaCache>> pending = new LinkedHashMap<>();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String schemaName : names) {
+                pending.put(schemaName, workers.submit(() -> {
+                    permits.acquire();
+                    try (Connection conn = dbManager.getConnection()) {
+                        SchemaCache sc = new SchemaCache(schemaName,
+                                fetchTablesFromDb(conn, schemaName),
+                                fetchFunctionsFromDb(conn, schemaName),
+                                fetchProceduresFromDb(conn, schemaName),
+                                null);
+                        progress.accept("Introspected schema " + schemaName
+                                + " (" + done.incrementAndGet() + "/" + names.size() + ")");
+                        return sc;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            Map<String, SchemaCache> schemas = new LinkedHashMap<>();
+            try {
+                for (Map.Entry<String, Future<SchemaCache>> e : pending.entrySet()) {
+                    schemas.put(e.getKey(), e.getValue().get());
+                }
+            } catch (ExecutionException e) {
+                pending.values().forEach(f -> f.cancel(true)); // Fail fast, don't wait for the rest
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+            return schemas;
+        }
+    }
+
+    // Helper: Detect changes (set comparison, names are unique per kind up to overloads)
     private boolean isSchemaUnchanged(SchemaCache old, List<TableCache> tables, List<String> funcs, List<String> procs) {
         if (old.tables().size() != tables.size()) return false;
         if (old.functions().size() != funcs.size()) return false;
-        if (!old.procedures().equals(procs)) return false;
+        if (old.procedures().size() != procs.size()) return false;
 
-        // Simple name/type check for tables (containsAll assumes unique names)
-        return old.functions().containsAll(funcs) && old.tables().containsAll(tables);
+        return new HashSet<>(old.tables()).equals(new HashSet<>(tables))
+                && new HashSet<>(old.functions()).equals(new HashSet<>(funcs))
+                && new HashSet<>(old.procedures()).equals(new HashSet<>(procs));
     }
 
     // --- Public API (Now served from Cache if available) ---
@@ -121,9 +331,14 @@ public class MetadataService {
     }
 
     private List<TableCache> fetchTablesFromDb(String schema) throws Exception {
+        try (Connection conn = dbManager.getConnection()) {
+            return fetchTablesFromDb(conn, schema);
+        }
+    }
+
+    private List<TableCache> fetchTablesFromDb(Connection conn, String schema) throws Exception {
         List<TableCache> tables = new ArrayList<>();
-        try (Connection conn = dbManager.getConnection();
-             ResultSet rs = conn.getMetaData().getTables(null, schema, "%", new String[]{"TABLE", "VIEW"})) {
+        try (ResultSet rs = conn.getMetaData().getTables(null, schema, "%", new String[]{"TABLE", "VIEW"})) {
             while (rs.next()) {
                 tables.add(new TableCache(rs.getString("TABLE_NAME"), rs.getString("TABLE_TYPE")));
             }
@@ -132,9 +347,14 @@ public class MetadataService {
     }
 
     private List<String> fetchProceduresFromDb(String schema) throws Exception {
+        try (Connection conn = dbManager.getConnection()) {
+            return fetchProceduresFromDb(conn, schema);
+        }
+    }
+
+    private List<String> fetchProceduresFromDb(Connection conn, String schema) throws Exception {
         List<String> procs = new ArrayList<>();
-        try (Connection conn = dbManager.getConnection();
-             ResultSet rs = conn.getMetaData().getProcedures(null, schema, "%")) {
+        try (ResultSet rs = conn.getMetaData().getProcedures(null, schema, "%")) {
             while (rs.next()) {
                 procs.add(rs.getString("PROCEDURE_NAME"));
             }
@@ -143,9 +363,14 @@ public class MetadataService {
     }
 
     private List<String> fetchFunctionsFromDb(String schema) throws Exception {
+        try (Connection conn = dbManager.getConnection()) {
+            return fetchFunctionsFromDb(conn, schema);
+        }
+    }
+
+    private List<String> fetchFunctionsFromDb(Connection conn, String schema) throws Exception {
         List<String> functions = new ArrayList<>();
-        try (Connection conn = dbManager.getConnection();
-             ResultSet rs = conn.getMetaData().getFunctions(null, schema, "%")) {
+        try (ResultSet rs = conn.getMetaData().getFunctions(null, schema, "%")) {
             while (rs.next()) {
                 functions.add(rs.getString("FUNCTION_NAME"));
             }
@@ -153,46 +378,286 @@ public class MetadataService {
         return functions;
     }
 
+    // --- Push invalidation: event triggers NOTIFY the IDE of DDL ---
+
+    public static final String DDL_CHANNEL = "pgdev_ddl";
+
+    // Payload: command_tag|schema|object_identity
+    private static final String[] CHANGE_TRIGGER_DDL = {
+            """
+            CREATE OR REPLACE FUNCTION public.pgdev_notify_ddl() RETURNS event_trigger
+            LANGUAGE plpgsql AS $$
+            DECLARE r record;
+            BEGIN
+                FOR r IN SELECT * FROM pg_event_trigger_ddl_commands() LOOP
+                    PERFORM pg_notify('pgdev_ddl', concat_ws('|', r.command_tag, r.schema_name, r.object_identity));
+                END LOOP;
+            END $$""",
+            """
+            CREATE OR REPLACE FUNCTION public.pgdev_notify_drop() RETURNS event_trigger
+            LANGUAGE plpgsql AS $$
+            DECLARE r record;
+            BEGIN
+                FOR r IN SELECT * FROM pg_event_trigger_dropped_objects() WHERE original LOOP
+                    PERFORM pg_notify('pgdev_ddl', concat_ws('|', tg_tag, r.schema_name, r.object_identity));
+                END LOOP;
+            END $$""",
+            "DROP EVENT TRIGGER IF EXISTS pgdev_ddl_end",
+            "CREATE EVENT TRIGGER pgdev_ddl_end ON ddl_command_end EXECUTE PROCEDURE public.pgdev_notify_ddl()",
+            "DROP EVENT TRIGGER IF EXISTS pgdev_sql_drop",
+            "CREATE EVENT TRIGGER pgdev_sql_drop ON sql_drop EXECUTE PROCEDURE public.pgdev_notify_drop()"
+    };
+
+    private static final String[] CHANGE_TRIGGER_DROP = {
+            "DROP EVENT TRIGGER IF EXISTS pgdev_ddl_end",
+            "DROP EVENT TRIGGER IF EXISTS pgdev_sql_drop",
+            "DROP FUNCTION IF EXISTS public.pgdev_notify_ddl()",
+            "DROP FUNCTION IF EXISTS public.pgdev_notify_drop()"
+    };
+
+    /**
+     * Installs the event triggers that NOTIFY {@link #DDL_CHANNEL} on every DDL command.
+     * Event triggers need a superuser, so this fails on most shared servers; callers fall back to polling.
+     */
+    public void installChangeTrigger() throws Exception {
+        runInTransaction(CHANGE_TRIGGER_DDL);
+    }
+
+    public void uninstallChangeTrigger() throws Exception {
+        runInTransaction(CHANGE_TRIGGER_DROP);
+    }
+
+    private void runInTransaction(String[] statements) throws Exception {
+        try (Connection conn = dbManager.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : statements) {
+                    stmt.execute(sql);
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Schemas added, removed or altered between two models. introspect() keeps the
+     * SchemaCache instance of untouched schemas, so identity rules most of them out.
+     */
+    public static Set<String> changedSchemas(DatabaseCache before, DatabaseCache after) {
+        Map<String, SchemaCache> old = before != null && before.schemas() != null ? before.schemas() : Map.of();
+        Map<String, SchemaCache> now = after != null && after.schemas() != null ? after.schemas() : Map.of();
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, SchemaCache> e : now.entrySet()) {
+            SchemaCache prev = old.get(e.getKey());
+            SchemaCache current = e.getValue();
+            // A moved fingerprint with the same object lists still means altered columns or indexes
+            if (prev == null || (prev != current && (prev.fingerprint() == null
+                    || !prev.fingerprint().equals(current.fingerprint())))) {
+                changed.add(e.getKey());
+            }
+        }
+        for (String name : old.keySet()) {
+            if (!now.containsKey(name)) changed.add(name);
+        }
+        return changed;
+    }
+
     // Legacy support record
     public record DbObject(String name, String type) {}
 
 
     public record ColumnInfo(String name, String type, int size, boolean isNullable) {}
-    public record IndexInfo(String name, boolean isUnique) {}
+    public record IndexInfo(String name, boolean isUnique, boolean isPrimary, String definition) {}
+    // type: p primary key, u unique, f foreign key, c check, x exclusion
+    public record ConstraintInfo(String name, char type, String definition) {}
+
+    /**
+     * Columns, indexes and constraints of one table or view.
+     */
+    public record TableDetails(List<ColumnInfo> columns, List<IndexInfo> indexes, List<ConstraintInfo> constraints) {
+        static final TableDetails EMPTY = new TableDetails(List.of(), List.of(), List.of());
+    }
 
     public List<ColumnInfo> getColumns(String schema, String table) throws Exception {
-        List<ColumnInfo> columns = new ArrayList<>();
-        try (Connection conn = dbManager.getConnection();
-             ResultSet rs = conn.getMetaData().getColumns(null, schema, table, null)) {
-            while (rs.next()) {
-                columns.add(new ColumnInfo(
-                        rs.getString("COLUMN_NAME"),
-                        rs.getString("TYPE_NAME"),
-                        rs.getInt("COLUMN_SIZE"),
-                        "YES".equals(rs.getString("IS_NULLABLE"))
-                ));
+        return getTableDetails(schema, table).columns();
+    }
+
+    public List<IndexInfo> getIndexes(String schema, String table) throws Exception {
+        return getTableDetails(schema, table).indexes();
+    }
+
+    public List<ConstraintInfo> getConstraints(String schema, String table) throws Exception {
+        return getTableDetails(schema, table).constraints();
+    }
+
+    public TableDetails getTableDetails(String schema, String table) throws Exception {
+        Map<String, TableDetails> tables = getSchemaDetails(schema);
+        TableDetails details = tables.get(table);
+        if (details == null) {
+            // Unquoted names typed by the user
+            for (Map.Entry<String, TableDetails> e : tables.entrySet()) {
+                if (e.getKey().equalsIgnoreCase(table)) return e.getValue();
             }
+            return TableDetails.EMPTY;
         }
-        return columns;
+        return details;
     }
 
-    public List<IndexInfo> getIndexes(String schema, String table) throws Exception {
-        List<IndexInfo> indexes = new ArrayList<>();
-        try (Connection conn = dbManager.getConnection();
-             // boolean unique, boolean approximate
-             ResultSet rs = conn.getMetaData().getIndexInfo(null, schema, table, false, false)) {
-            while (rs.next()) {
-                String idxName = rs.getString("INDEX_NAME");
-                if (idxName != null) { // Some rows are stats
-                    boolean unique = !rs.getBoolean("NON_UNIQUE");
-                    // Simple dedup logic or list could be used
-                    if (indexes.stream().noneMatch(i -> i.name().equals(idxName))) {
-                        indexes.add(new IndexInfo(idxName, unique));
+    /**
+     * Details of every relation in the schema, by table name. The whole schema is loaded in three
+     * catalog queries on the first request and then served from memory until it expires, is evicted,
+     * or an introspection sees the schema's fingerprint move.
+     */
+    public Map<String, TableDetails> getSchemaDetails(String schema) throws Exception {
+        DetailsKey key = new DetailsKey(dbManager.getActiveProfileName(), schema);
+        Map<String, TableDetails> details = tableDetails.get(key);
+        if (details == null) {
+            long generation;
+            synchronized (detailsLock) {
+                generation = detailsGeneration;
+            }
+            details = fetchSchemaDetailsFromDb(schema);
+            synchronized (detailsLock) {
+                // An invalidation during the fetch may mean these rows are already stale: return them, but don't keep them
+                if (generation == detailsGeneration) tableDetails.put(key, details);
+            }
+        }
+        return details;
+    }
+
+    /**
+     * Drops the cached details of a schema (e.g. after DDL issued from the IDE); null drops all.
+     */
+    public void invalidateTableDetails(String schema) {
+        String profile = dbManager.getActiveProfileName();
+        synchronized (detailsLock) {
+            detailsGeneration++;
+            tableDetails.removeIf((key, value) -> Objects.equals(key.profile(), profile)
+                    && (schema == null || key.schema().equals(schema)));
+        }
+    }
+
+    // Drops the details of schemas whose catalog rows changed (or cannot be compared)
+    private void invalidateChangedDetails(Map<String, SchemaCache> before, Map<String, SchemaCache> after) {
+        if (tableDetails.isEmpty()) return;
+        for (SchemaCache old : before.values()) {
+            SchemaCache now = after.get(old.name());
+            if (now == null || old.fingerprint() == null || !old.fingerprint().equals(now.fingerprint())) {
+                invalidateTableDetails(old.name());
+            }
+        }
+    }
+
+    private record DetailsKey(String profile, String schema) {}
+
+    public static final long DETAILS_MAX_BYTES = 32L * 1024 * 1024;
+    public static final long DETAILS_TTL_MILLIS = 10 * 60 * 1000;
+
+    private final WeightedLruCache<DetailsKey, Map<String, TableDetails>> tableDetails = new WeightedLruCache<>(
+            DETAILS_MAX_BYTES, DETAILS_TTL_MILLIS, MetadataService::estimateBytes);
+    // Bumped by every invalidation; a fetch only stores its result if none happened since it started
+    private final Object detailsLock = new Object();
+    private long detailsGeneration; // Guarded by detailsLock
+
+    private static final String COLUMNS_SQL = """
+            SELECT c.relname, a.attname, t.typname,
+                   CASE WHEN a.atttypid IN (1042, 1043) AND a.atttypmod > 0 THEN a.atttypmod - 4
+                        WHEN a.atttypid = 1700 AND a.atttypmod > 0 THEN ((a.atttypmod - 4) >> 16) & 65535
+                        ELSE t.typlen END,
+                   NOT a.attnotnull
+            FROM pg_catalog.pg_attribute a
+            JOIN pg_catalog.pg_class c ON c.oid = a.attrelid
+            JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+            JOIN pg_catalog.pg_type t ON t.oid = a.atttypid
+            WHERE n.nspname = ? AND c.relkind IN ('r', 'p', 'v', 'm', 'f') AND a.attnum > 0 AND NOT a.attisdropped
+            ORDER BY c.relname, a.attnum""";
+
+    // One row per index, so no deduplication is needed
+    private static final String INDEXES_SQL = """
+            SELECT t.relname, i.relname, x.indisunique, x.indisprimary, pg_catalog.pg_get_indexdef(x.indexrelid)
+            FROM pg_catalog.pg_index x
+            JOIN pg_catalog.pg_class i ON i.oid = x.indexrelid
+            JOIN pg_catalog.pg_class t ON t.oid = x.indrelid
+            JOIN pg_catalog.pg_namespace n ON n.oid = t.relnamespace
+            WHERE n.nspname = ?
+            ORDER BY t.relname, i.relname""";
+
+    private static final String CONSTRAINTS_SQL = """
+            SELECT t.relname, c.conname, c.contype, pg_catalog.pg_get_constraintdef(c.oid)
+            FROM pg_catalog.pg_constraint c
+            JOIN pg_catalog.pg_class t ON t.oid = c.conrelid
+            JOIN pg_catalog.pg_namespace n ON n.oid = t.relnamespace
+            WHERE n.nspname = ?
+            ORDER BY t.relname, c.conname""";
+
+    private Map<String, TableDetails> fetchSchemaDetailsFromDb(String schema) throws Exception {
+        Map<String, List<ColumnInfo>> columns = new HashMap<>();
+        Map<String, List<IndexInfo>> indexes = new HashMap<>();
+        Map<String, List<ConstraintInfo>> constraints = new HashMap<>();
+
+        try (Connection conn = dbManager.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(COLUMNS_SQL)) {
+                ps.setString(1, schema);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        columns.computeIfAbsent(rs.getString(1), k -> new ArrayList<>())
+                                .add(new ColumnInfo(rs.getString(2), rs.getString(3), rs.getInt(4), rs.getBoolean(5)));
+                    }
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(INDEXES_SQL)) {
+                ps.setString(1, schema);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        indexes.computeIfAbsent(rs.getString(1), k -> new ArrayList<>())
+                                .add(new IndexInfo(rs.getString(2), rs.getBoolean(3), rs.getBoolean(4), rs.getString(5)));
+                    }
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(CONSTRAINTS_SQL)) {
+                ps.setString(1, schema);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String type = rs.getString(3);
+                        constraints.computeIfAbsent(rs.getString(1), k -> new ArrayList<>())
+                                .add(new ConstraintInfo(rs.getString(2), type == null || type.isEmpty() ? '?' : type.charAt(0),
+                                        rs.getString(4)));
                     }
                 }
             }
         }
-        return indexes;
+
+        Map<String, TableDetails> details = new HashMap<>(columns.size() * 2);
+        for (Map.Entry<String, List<ColumnInfo>> e : columns.entrySet()) {
+            String table = e.getKey();
+            details.put(table, new TableDetails(List.copyOf(e.getValue()),
+                    List.copyOf(indexes.getOrDefault(table, List.of())),
+                    List.copyOf(constraints.getOrDefault(table, List.of()))));
+        }
+        return details;
+    }
+
+    // Rough heap size: strings at two bytes a char plus a fixed overhead per object
+    private static long estimateBytes(Map<String, TableDetails> details) {
+        long bytes = 64;
+        for (Map.Entry<String, TableDetails> e : details.entrySet()) {
+            bytes += 96 + 2L * e.getKey().length();
+            TableDetails d = e.getValue();
+            for (ColumnInfo c : d.columns()) bytes += 80 + 2L * (c.name().length() + c.type().length());
+            for (IndexInfo i : d.indexes()) bytes += 80 + 2L * (i.name().length() + lengthOf(i.definition()));
+            for (ConstraintInfo c : d.constraints()) bytes += 64 + 2L * (c.name().length() + lengthOf(c.definition()));
+        }
+        return bytes;
+    }
+
+    private static int lengthOf(String s) {
+        return s == null ? 0 : s.length();
     }
 
     // --- NEW: Routine Details ---
@@ -0,0 +1,331 @@
+package ro.fintechpro.core.service;
+
+import ro.fintechpro.core.model.DatabaseCache;
+import ro.fintechpro.core.model.DatabaseCache.SchemaCache;
+import ro.fintechpro.core.model.DatabaseCache.TableCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Binary on-disk form of a {@link DatabaseCache}.
+ *
+ * <pre>
+ * header     int magic, int version, long lastIntrospectionTime, int connectionName,
+ *            int schemaCount, long stringTableOffset
+ * directory  schemaCount x (int name, long sectionOffset)
+ * sections   per schema: int fingerprint, int tableCount, tableCount x (int name, int type),
+ *            int functionCount, functions, int procedureCount, procedures
+ * strings    int count, (count + 1) x int byte offset, UTF-8 bytes
+ * </pre>
+ * Every string is written once and referenced by index (-1 for null). Loading copies the file to
+ * the heap in one read and decodes only the header and the directory; a schema section is decoded the
+ * first time the schema is looked up. The file is not mapped: a loaded snapshot lives all session, and
+ * a mapped file could not be replaced by the next {@link #write} on Windows.
+ */
+public final class MetadataSnapshot {
+
+    private static final int MAGIC = 0x5047444D; // "PGDM"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 8;
+    private static final int DIRECTORY_ENTRY_BYTES = 4 + 8;
+
+    private MetadataSnapshot() {}
+
+    // --- Writing ---
+
+    /**
+     * Writes the snapshot next to the target and moves it into place, so readers never see half a file.
+     */
+    public static void write(DatabaseCache cache, Path file) throws IOException {
+        StringTable strings = new StringTable();
+        int connectionName = strings.indexOf(cache.connectionName());
+
+        // 1. Schema sections (this also fills the string table)
+        Map<String, SchemaCache> schemas = cache.schemas() != null ? cache.schemas() : Map.of();
+        ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream();
+        DataOutputStream sections = new DataOutputStream(sectionBytes);
+        int[] names = new int[schemas.size()];
+        long[] offsets = new long[schemas.size()];
+        long sectionsStart = HEADER_BYTES + (long) DIRECTORY_ENTRY_BYTES * schemas.size();
+
+        int i = 0;
+        for (SchemaCache schema : schemas.values()) {
+            names[i] = strings.indexOf(schema.name());
+            offsets[i] = sectionsStart + sections.size();
+            writeSection(sections, schema, strings);
+            i++;
+        }
+        sections.flush();
+
+        // 2. Header, directory, sections, strings
+        long stringTableOffset = sectionsStart + sectionBytes.size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) stringTableOffset + strings.estimatedBytes());
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(cache.lastIntrospectionTime());
+        data.writeInt(connectionName);
+        data.writeInt(schemas.size());
+        data.writeLong(stringTableOffset);
+        for (int s = 0; s < names.length; s++) {
+            data.writeInt(names[s]);
+            data.writeLong(offsets[s]);
+        }
+        sectionBytes.writeTo(data);
+        strings.writeTo(data);
+        data.flush();
+
+        // Each call writes its own temporary file, so concurrent writers never share one
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+        try {
+            Files.write(tmp, out.toByteArray());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    private static void writeSection(DataOutputStream out, SchemaCache schema, StringTable strings) throws IOException {
+        out.writeInt(strings.indexOf(schema.fingerprint()));
+        List<TableCache> tables = schema.tables() != null ? schema.tables() : List.of();
+        out.writeInt(tables.size());
+        for (TableCache t : tables) {
+            out.writeInt(strings.indexOf(t.name()));
+            out.writeInt(strings.indexOf(t.type()));
+        }
+        writeNames(out, schema.functions(), strings);
+        writeNames(out, schema.procedures(), strings);
+    }
+
+    private static void writeNames(DataOutputStream out, List<String> names, StringTable strings) throws IOException {
+        if (names == null) names = List.of();
+        out.writeInt(names.size());
+        for (String n : names) out.writeInt(strings.indexOf(n));
+    }
+
+    private static final class StringTable {
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<byte[]> bytes = new ArrayList<>();
+        private int totalBytes;
+
+        int indexOf(String s) {
+            if (s == null) return -1;
+            return index.computeIfAbsent(s, k -> {
+                byte[] b = k.getBytes(StandardCharsets.UTF_8);
+                bytes.add(b);
+                totalBytes += b.length;
+                return bytes.size() - 1;
+            });
+        }
+
+        int estimatedBytes() {
+            return 4 + 4 * (bytes.size() + 1) + totalBytes;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(bytes.size());
+            int offset = 0;
+            for (byte[] b : bytes) {
+                out.writeInt(offset);
+                offset += b.length;
+            }
+            out.writeInt(offset);
+            for (byte[] b : bytes) out.write(b);
+        }
+    }
+
+    // --- Reading ---
+
+    /**
+     * Reads the file into memory and decodes its header and directory.
+     * @return the cache, or null if the file is missing, from another format version, or damaged.
+     */
+    public static DatabaseCache read(Path file) {
+        if (!Files.isRegularFile(file)) return null;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                return null;
+            }
+            Reader reader = new Reader(buffer);
+            return new DatabaseCache(reader.string(buffer.getInt(16)), buffer.getLong(8), new LazySchemas(reader));
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private final int stringCount;
+        private final int stringOffsets;
+        private final int stringData;
+        private final String[] decoded;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+            int table = Math.toIntExact(buffer.getLong(24));
+            this.stringCount = buffer.getInt(table);
+            this.stringOffsets = table + 4;
+            this.stringData = stringOffsets + 4 * (stringCount + 1);
+            this.decoded = new String[stringCount];
+        }
+
+        // Decoded once, so equal names share one String instance
+        synchronized String string(int index) {
+            if (index < 0) return null;
+            String s = decoded[index];
+            if (s == null) {
+                int from = buffer.getInt(stringOffsets + 4 * index);
+                int to = buffer.getInt(stringOffsets + 4 * (index + 1));
+                byte[] b = new byte[to - from];
+                buffer.get(stringData + from, b);
+                s = new String(b, StandardCharsets.UTF_8);
+                decoded[index] = s;
+            }
+            return s;
+        }
+
+        int schemaCount() {
+            return buffer.getInt(20);
+        }
+
+        String schemaName(int i) {
+            return string(buffer.getInt(HEADER_BYTES + DIRECTORY_ENTRY_BYTES * i));
+        }
+
+        SchemaCache schema(int i) {
+            int pos = Math.toIntExact(buffer.getLong(HEADER_BYTES + DIRECTORY_ENTRY_BYTES * i + 4));
+            String fingerprint = string(buffer.getInt(pos));
+            pos += 4;
+
+            int tableCount = buffer.getInt(pos);
+            pos += 4;
+            List<TableCache> tables = new ArrayList<>(tableCount);
+            for (int t = 0; t < tableCount; t++, pos += 8) {
+                tables.add(new TableCache(string(buffer.getInt(pos)), string(buffer.getInt(pos + 4))));
+            }
+
+            int functionCount = buffer.getInt(pos);
+            List<String> functions = new ArrayList<>(functionCount);
+            for (int f = 0; f < functionCount; f++) functions.add(string(buffer.getInt(pos + 4 + 4 * f)));
+            pos += 4 + 4 * functionCount;
+
+            int procedureCount = buffer.getInt(pos);
+            List<String> procedures = new ArrayList<>(procedureCount);
+            for (int p = 0; p < procedureCount; p++) procedures.add(string(buffer.getInt(pos + 4 + 4 * p)));
+
+            return new SchemaCache(schemaName(i), tables, functions, procedures, fingerprint);
+        }
+    }
+
+    /**
+     * Read-only map over the directory; each schema is decoded on first access and then kept.
+     * Iterates in the order the schemas were written.
+     */
+    private static final class LazySchemas extends AbstractMap<String, SchemaCache> {
+        private final Reader reader;
+        private final Map<String, Integer> positions = new HashMap<>();
+        private final String[] names;
+        private final SchemaCache[] schemas;
+
+        LazySchemas(Reader reader) {
+            this.reader = reader;
+            int count = reader.schemaCount();
+            this.names = new String[count];
+            this.schemas = new SchemaCache[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = reader.schemaName(i);
+                positions.put(names[i], i);
+            }
+        }
+
+        private synchronized SchemaCache schemaAt(int i) {
+            if (schemas[i] == null) schemas[i] = reader.schema(i);
+            return schemas[i];
+        }
+
+        @Override
+        public SchemaCache get(Object key) {
+            Integer i = positions.get(key);
+            return i == null ? null : schemaAt(i);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return positions.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return names.length;
+        }
+
+        @Override
+        public Set<Entry<String, SchemaCache>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, SchemaCache>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < names.length;
+                        }
+
+                        @Override
+                        public Entry<String, SchemaCache> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int i = next++;
+                            return new SimpleImmutableEntry<>(names[i], schemaAt(i));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+        }
+
+        // Names come straight from the directory, without decoding any section
+        @Override
+        public Set<String> keySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return List.of(names).iterator();
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return positions.containsKey(o);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ro.fintechpro.core.service;
+
+import org.postgresql.PGStatement;
+import org.postgresql.core.BaseConnection;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU of prepared statements per physical connection, keyed by normalized SQL.
+ * Statements are prepared on the unwrapped driver connection, so the pool does not close them
+ * when the connection goes back; once pgjdbc's prepareThreshold is reached they run from a
+ * server-side prepared plan and skip parse/plan on every later execution.
+ * A connection's statements are dropped when the connection is found closed.
+ */
+class PreparedStatementCache {
+
+    static final int DEFAULT_CAPACITY = 64;
+
+    record Lookup(PreparedStatement statement, boolean reused) {}
+
+    private final Map<BaseConnection, Map<String, PreparedStatement>> byConnection = new IdentityHashMap<>();
+    private volatile int capacity = DEFAULT_CAPACITY;
+    private volatile int prepareThreshold = QueryExecutor.DEFAULT_PREPARE_THRESHOLD;
+
+    int getCapacity() { return capacity; }
+
+    void setCapacity(int capacity) { this.capacity = Math.max(1, capacity); }
+
+    int getPrepareThreshold() { return prepareThreshold; }
+
+    void setPrepareThreshold(int prepareThreshold) { this.prepareThreshold = prepareThreshold; }
+
+    /**
+     * Callers must own the connection (a pooled borrow or a session lock), so the returned
+     * statement is never used by two threads at once.
+     */
+    synchronized Lookup get(BaseConnection conn, String sql) throws SQLException {
+        purgeClosed();
+        Map<String, PreparedStatement> statements = byConnection.computeIfAbsent(conn, c -> newLru());
+
+        PreparedStatement ps = statements.get(sql);
+        boolean reused = ps != null && !ps.isClosed();
+        if (!reused) {
+            ps = conn.prepareStatement(sql);
+            statements.put(sql, ps);
+        }
+        ps.unwrap(PGStatement.class).setPrepareThreshold(prepareThreshold);
+        return new Lookup(ps, reused);
+    }
+
+    private Map<String, PreparedStatement> newLru() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= capacity) return false;
+                close(eldest.getValue()); // Also deallocates the server-side statement
+                return true;
+            }
+        };
+    }
+
+    private void purgeClosed() {
+        byConnection.keySet().removeIf(conn -> {
+            try {
+                return conn.isClosed();
+            } catch (SQLException e) {
+                return true;
+            }
+        });
+    }
+
+    private static void close(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -1,27 +1,134 @@
 package ro.fintechpro.core.service;
 
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TransactionState;
 import ro.fintechpro.core.db.DataSourceManager;
+import ro.fintechpro.core.result.ColumnarResult;
+import ro.fintechpro.core.result.ResultSpillStore;
+import ro.fintechpro.core.script.ScriptSplitter;
+import ro.fintechpro.core.script.ScriptStatement;
+import ro.fintechpro.core.script.SqlAnalysis;
+import ro.fintechpro.core.script.SqlParameters;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class QueryExecutor {
 
+    // Rows pulled per network round trip when streaming (pgjdbc cursor mode)
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    // Plain DML statements sent per JDBC batch (one round trip each)
+    public static final int SCRIPT_BATCH_SIZE = 1000;
+    // Executions of a cached prepared statement before pgjdbc switches to a named server-side plan
+    public static final int DEFAULT_PREPARE_THRESHOLD = 1;
+    // Per-statement timing lines kept in a script's message
+    private static final int MAX_REPORT_LINES = 1000;
+    private static final int MAX_COPY_OUT_CHARS = 64 * 1024;
+
     private final DataSourceManager dbManager = DataSourceManager.getInstance();
+    private final ResultSpillStore spillStore;
+
+    // One virtual thread per execution: consoles never queue behind each other here,
+    // only on their own profile's pool
+    private final ExecutorService lanes = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile int fetchSize = DEFAULT_FETCH_SIZE;
+    private final PreparedStatementCache statementCache = new PreparedStatementCache();
+    private final QueryResultCache resultCache = new QueryResultCache();
 
     // A simple container for the result
     public record QueryResult(
             boolean isResultSet,
             List<String> columns,
-            List<List<Object>> data, // The rows
+            ColumnarResult data, // The rows, stored column by column
             int updateCount,
             String message
     ) {}
 
+    /**
+     * Per-execution settings. A null profile means the globally active one;
+     * a statement timeout of 0 means no timeout.
+     * With a session, the statement runs on its pinned connection and the session owns the transaction.
+     * Parameters bind ":name" / "$1" placeholders by name ("name" / "$1"); a null value binds SQL NULL.
+     * Statements with placeholders run as cached prepared statements.
+     * With the result cache on, a lone read-only query may be answered from {@link #getResultCache()}.
+     */
+    public record ExecutionOptions(String profileName, int fetchSize, int statementTimeoutSeconds,
+                                   ConsoleSession session, Map<String, String> parameters,
+                                   boolean useResultCache) {}
+
+    /**
+     * Receives a streamed result chunk by chunk. All callbacks run on the executing thread.
+     */
+    public interface StreamListener {
+        /**
+         * Called once with the (still empty) result that the rows will be appended to.
+         */
+        void onStart(ColumnarResult result);
+
+        /**
+         * Rows [fromRow, toRow) are now readable from the result.
+         * @return false to stop fetching; the remaining rows are never transferred.
+         */
+        boolean onRows(ColumnarResult result, int fromRow, int toRow);
+    }
+
+    public QueryExecutor() {
+        this(new ResultSpillStore(new WorkspaceService().getResultsDirectory()));
+    }
+
+    public QueryExecutor(ResultSpillStore spillStore) {
+        this.spillStore = spillStore;
+    }
+
+    /**
+     * Memory budget and disk cap for streamed results live here.
+     */
+    public ResultSpillStore getSpillStore() { return spillStore; }
+
+    public int getFetchSize() { return fetchSize; }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    /**
+     * Opt-in per execution (see {@link ExecutionOptions#useResultCache()}); size and TTL are set here.
+     */
+    public QueryResultCache getResultCache() { return resultCache; }
+
+    public int getPrepareThreshold() { return statementCache.getPrepareThreshold(); }
+
+    /**
+     * pgjdbc prepareThreshold for parameterized console statements: 0 never prepares server-side,
+     * a negative value forces binary transfer from the first execution.
+     */
+    public void setPrepareThreshold(int prepareThreshold) {
+        statementCache.setPrepareThreshold(prepareThreshold);
+    }
+
+    public int getStatementCacheSize() { return statementCache.getCapacity(); }
+
+    public void setStatementCacheSize(int size) {
+        statementCache.setCapacity(size);
+    }
+
+    public ExecutionOptions getDefaultOptions() {
+        return new ExecutionOptions(null, fetchSize, 0, null, Map.of(), false);
+    }
+
     public QueryResult execute(String sql) throws SQLException {
+        String profile = dbManager.getActiveProfileName();
+        if (profile != null) resultCache.invalidate(profile, SqlAnalysis.tablesWritten(sql));
+
         try (Connection conn = dbManager.getConnection();
              Statement stmt = conn.createStatement()) {
 
@@ -30,26 +137,15 @@ public class QueryExecutor {
 
             if (hasResultSet) {
                 try (ResultSet rs = stmt.getResultSet()) {
-                    ResultSetMetaData meta = rs.getMetaData();
-                    int colCount = meta.getColumnCount();
-
-                    // 1. Get Column Names
-                    List<String> columns = new ArrayList<>();
-                    for (int i = 1; i <= colCount; i++) {
-                        columns.add(meta.getColumnLabel(i));
-                    }
+                    // 1. Storage layout is picked from the column types
+                    ColumnarResult data = ColumnarResult.fromMetaData(rs.getMetaData());
 
                     // 2. Get Data Rows
-                    List<List<Object>> data = new ArrayList<>();
                     while (rs.next()) {
-                        List<Object> row = new ArrayList<>();
-                        for (int i = 1; i <= colCount; i++) {
-                            row.add(rs.getObject(i));
-                        }
-                        data.add(row);
+                        data.appendRow(rs);
                     }
 
-                    return new QueryResult(true, columns, data, 0, "Query executed successfully.");
+                    return new QueryResult(true, data.getColumnNames(), data, 0, "Query executed successfully.");
                 }
             } else {
                 // It was an UPDATE / INSERT / DELETE / DDL
@@ -58,4 +154,492 @@ public class QueryExecutor {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Starts the script on its own virtual thread, against the profile named in the options,
+     * and returns immediately. The text is split into statements (see {@link ScriptSplitter}) that run
+     * one after another on a single connection; every result set streams to the listener as in
+     * {@link #executeStreaming}. The handle cancels the run, reports progress and completes with the
+     * final result.
+     */
+    public ExecutionHandle submit(String sql, ExecutionOptions options, StreamListener listener) {
+        ConsoleSession session = options.session();
+        String cancelProfile = session != null ? session.getProfileName() : options.profileName();
+        ExecutionHandle handle = new ExecutionHandle(sql, pid -> cancelBackend(cancelProfile, pid));
+        lanes.execute(() -> {
+            try {
+                List<ScriptStatement> script = ScriptSplitter.split(sql);
+                String profile = session != null ? session.getProfileName()
+                        : options.profileName() != null ? options.profileName() : dbManager.getActiveProfileName();
+
+                // 1. Answer from the result cache when allowed
+                QueryResultCache.Key cacheKey = cacheKey(script, profile, options);
+                QueryResultCache.CachedResult hit = cacheKey == null ? null : resultCache.get(cacheKey);
+                if (hit != null) {
+                    handle.complete(replay(hit, listener, handle));
+                    return;
+                }
+
+                // 2. Run it
+                StopTracker tracked = new StopTracker(listener);
+                QueryResult result = session != null
+                        ? session.withConnection(conn -> runScript(conn, script, profile, options, tracked, handle))
+                        : runPooled(script, profile, options, tracked, handle);
+
+                // 3. Keep complete, fully in-memory results only
+                if (cacheKey != null && result.isResultSet() && !tracked.stopped && !handle.isCancelRequested()
+                        && result.data().getSpilledRowCount() == 0) {
+                    resultCache.put(cacheKey, script.get(0).sql(), result);
+                }
+                handle.complete(result);
+            } catch (Exception e) {
+                handle.fail(e);
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * Blocking variant of {@link #submit}, on the globally active profile.
+     * pgjdbc only uses a server-side cursor when autocommit is off and a fetch size is set,
+     * so rows arrive in chunks of {@link #getFetchSize()} instead of being buffered whole.
+     * The returned result holds the last {@link ColumnarResult} the listener was given.
+     */
+    public QueryResult executeStreaming(String sql, StreamListener listener) throws SQLException {
+        return runPooled(ScriptSplitter.split(sql), dbManager.getActiveProfileName(), getDefaultOptions(), listener,
+                new ExecutionHandle(sql, pid -> cancelBackend(null, pid)));
+    }
+
+    private QueryResult runPooled(List<ScriptStatement> script, String profile, ExecutionOptions options,
+                                  StreamListener listener, ExecutionHandle handle) throws SQLException {
+        try (Connection conn = connect(options.profileName())) {
+            boolean clean = false;
+            try {
+                QueryResult result = runScript(conn, script, profile, options, listener, handle);
+                clean = true;
+                // Never hand a connection back to the pool in the middle of a transaction
+                if (endOpenTransaction(conn)) {
+                    return new QueryResult(result.isResultSet(), result.columns(), result.data(),
+                            result.updateCount(),
+                            result.message() + "\nThe script left a transaction open; it was rolled back.");
+                }
+                return result;
+            } finally {
+                if (!clean) endOpenTransaction(conn);
+            }
+        }
+    }
+
+    /**
+     * Runs the statements in order on one connection, stopping at the first error.
+     * - Consecutive plain DML statements go out as one JDBC batch (a single round trip).
+     * - COPY ... FROM STDIN / TO STDOUT go through the CopyManager.
+     * - Everything else is executed on its own, and every result set it returns is streamed.
+     * On a pooled connection statements autocommit, like psql; on a pinned session nothing is committed here.
+     * Cached results of the profile that read a table a statement writes are dropped before it runs.
+     */
+    private QueryResult runScript(Connection conn, List<ScriptStatement> script, String profile,
+                                  ExecutionOptions options, StreamListener listener,
+                                  ExecutionHandle handle) throws SQLException {
+        int total = script.size();
+        if (total == 0) {
+            return new QueryResult(false, null, null, 0, "Nothing to execute.");
+        }
+        boolean pinned = options.session() != null;
+        BaseConnection pg = conn.unwrap(BaseConnection.class);
+        handle.statementProgress(0, total);
+
+        StringBuilder report = new StringBuilder();
+        int reportLines = 0;
+        int batches = 0;
+        long rowsAffected = 0;
+        QueryResult last = null;
+        QueryResult lastRows = null;
+
+        try (Statement stmt = pg.createStatement()) {
+            stmt.setFetchSize(options.fetchSize());
+            if (options.statementTimeoutSeconds() > 0) {
+                stmt.setQueryTimeout(options.statementTimeoutSeconds());
+            }
+            handle.attach(stmt, pg.getBackendPID());
+
+            Map<String, String> binds = options.parameters() == null ? Map.of() : options.parameters();
+            int i = 0;
+            while (i < total && !handle.isCancelRequested()) {
+                ScriptStatement st = script.get(i);
+                SqlParameters.ParsedSql parsed = parameterized(st, binds);
+
+                // 1. Group a run of plain DML into one batch (parameterized statements run on their own)
+                int end = i + 1;
+                if (st.isBatchable() && parsed == null) {
+                    while (end < total && end - i < SCRIPT_BATCH_SIZE && script.get(end).isBatchable()
+                            && parameterized(script.get(end), binds) == null) end++;
+                }
+
+                // 2. Execute
+                if (!resultCache.isEmpty()) {
+                    for (int k = i; k < end; k++) {
+                        resultCache.invalidate(profile, SqlAnalysis.tablesWritten(script.get(k).sql()));
+                    }
+                }
+                long started = System.nanoTime();
+                String outcome;
+                try {
+                    if (end - i > 1) {
+                        long rows = runBatch(stmt, script, i, end);
+                        rowsAffected += rows;
+                        batches++;
+                        outcome = "batch of " + (end - i) + " statements, " + rows + " rows";
+                    } else {
+                        last = runStatement(pg, stmt, st, parsed, options, listener, handle);
+                        if (last.isResultSet()) {
+                            lastRows = last;
+                            outcome = last.data().getRowCount() + " rows";
+                        } else {
+                            rowsAffected += Math.max(0, last.updateCount());
+                            outcome = last.message();
+                        }
+                    }
+                } catch (SQLException e) {
+                    if (handle.isCancelRequested()) break;
+                    if (total == 1) {
+                        throw withSessionHint(e, options);
+                    }
+                    int failed = i + failedOffset(e, end - i);
+                    ScriptStatement bad = script.get(failed);
+                    throw withSessionHint(new SQLException(
+                            "Statement " + (failed + 1) + " of " + total + " (line " + bad.line() + ") failed: "
+                                    + e.getMessage() + "\n" + bad.summary()
+                                    + "\n" + failed + " statements before it ran.",
+                            e.getSQLState(), e), options);
+                }
+                long millis = (System.nanoTime() - started) / 1_000_000;
+
+                if (reportLines < MAX_REPORT_LINES) {
+                    report.append(String.format("%n#%-5d line %-6d %6d ms  %s  -> %s",
+                            i + 1, st.line(), millis, st.summary(), outcome));
+                    reportLines++;
+                }
+                i = end;
+                handle.statementProgress(i, total);
+            }
+
+            String suffix = pinned && pg.getTransactionState() != TransactionState.IDLE ? " (not committed)" : "";
+            int done = handle.getStatementsDone();
+
+            // A single statement keeps the plain messages
+            if (total == 1 && last == null) {
+                String hint = pinned && options.session().isTransactionFailed() ? " Roll back to continue." : "";
+                return new QueryResult(false, null, null, 0,
+                        "Query cancelled after " + handle.getElapsedMillis() + " ms." + hint);
+            }
+            if (total == 1) {
+                return new QueryResult(last.isResultSet(), last.columns(), last.data(), last.updateCount(),
+                        last.message() + suffix);
+            }
+
+            StringBuilder message = new StringBuilder();
+            if (done < total) {
+                message.append("Script cancelled after ").append(done).append(" of ").append(total).append(" statements");
+            } else {
+                message.append("Script finished: ").append(total).append(" statements");
+            }
+            message.append(String.format(" in %.2f s", handle.getElapsedMillis() / 1000.0));
+            if (batches > 0) message.append(" (").append(batches).append(" batches)");
+            message.append(". Rows affected: ").append(rowsAffected).append(suffix).append('.');
+            message.append(report);
+            if (reportLines < done) {
+                message.append(System.lineSeparator()).append("... timings for ").append(done - reportLines)
+                        .append(" more statements omitted");
+            }
+
+            int updateCount = (int) Math.min(Integer.MAX_VALUE, rowsAffected);
+            return lastRows != null
+                    ? new QueryResult(true, lastRows.columns(), lastRows.data(), updateCount, message.toString())
+                    : new QueryResult(false, null, null, updateCount, message.toString());
+        } finally {
+            handle.detach();
+        }
+    }
+
+    private QueryResult runStatement(BaseConnection conn, Statement stmt, ScriptStatement st,
+                                     SqlParameters.ParsedSql parsed,
+                                     ExecutionOptions options, StreamListener listener,
+                                     ExecutionHandle handle) throws SQLException {
+        switch (st.kind()) {
+            case COPY_IN -> {
+                try {
+                    long rows = conn.getCopyAPI().copyIn(st.sql(), new StringReader(st.copyData()));
+                    return new QueryResult(false, null, null, (int) rows, "COPY " + rows);
+                } catch (IOException e) {
+                    throw new SQLException("COPY failed: " + e.getMessage(), e);
+                }
+            }
+            case COPY_OUT -> {
+                StringWriter out = new StringWriter();
+                try {
+                    long rows = conn.getCopyAPI().copyOut(st.sql(), out);
+                    String text = out.toString();
+                    if (text.length() > MAX_COPY_OUT_CHARS) text = text.substring(0, MAX_COPY_OUT_CHARS) + "…";
+                    return new QueryResult(false, null, null, (int) rows, "COPY " + rows + "\n" + text);
+                } catch (IOException e) {
+                    throw new SQLException("COPY failed: " + e.getMessage(), e);
+                }
+            }
+            default -> {
+                // pgjdbc only streams through a cursor with autocommit off. Open a transaction just for
+                // row-returning statements, and only when the script is not inside one of its own
+                // (and never around DDL such as VACUUM that refuses to run in one)
+                boolean wrap = st.kind() == ScriptStatement.Kind.QUERY
+                        && conn.getAutoCommit()
+                        && conn.getTransactionState() == TransactionState.IDLE;
+                if (wrap) conn.setAutoCommit(false);
+                try {
+                    QueryResult result = parsed != null
+                            ? executePrepared(conn, stmt, parsed, options, listener, handle)
+                            : streamResults(stmt, stmt.execute(st.sql()), options.fetchSize(), listener, handle);
+                    if (wrap) {
+                        if (handle.isCancelRequested()) conn.rollback();
+                        else conn.commit(); // Even when the fetch was stopped: side effects already ran in full
+                    }
+                    return result;
+                } catch (SQLException e) {
+                    if (wrap) conn.rollback();
+                    throw e;
+                } finally {
+                    if (wrap) conn.setAutoCommit(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Binds the console parameters into a cached prepared statement and runs it.
+     * The statement stays open in the cache; only its results are closed.
+     */
+    private QueryResult executePrepared(BaseConnection conn, Statement scriptStmt, SqlParameters.ParsedSql parsed,
+                                        ExecutionOptions options, StreamListener listener,
+                                        ExecutionHandle handle) throws SQLException {
+        PreparedStatementCache.Lookup lookup = statementCache.get(conn, parsed.jdbcSql());
+        PreparedStatement ps = lookup.statement();
+        ps.clearParameters();
+        List<String> order = parsed.bindOrder();
+        for (int k = 0; k < order.size(); k++) {
+            String name = order.get(k);
+            if (!options.parameters().containsKey(name)) {
+                throw new SQLException("No value bound for " + (name.startsWith("$") ? name : ":" + name));
+            }
+            String value = options.parameters().get(name);
+            // Untyped, so the server infers each type from its context, as for a literal
+            if (value == null) ps.setNull(k + 1, Types.OTHER);
+            else ps.setObject(k + 1, value, Types.OTHER);
+        }
+        ps.setFetchSize(options.fetchSize());
+        ps.setQueryTimeout(Math.max(0, options.statementTimeoutSeconds()));
+
+        handle.attach(ps, conn.getBackendPID());
+        try {
+            QueryResult result = streamResults(ps, ps.execute(), options.fetchSize(), listener, handle);
+            String note = lookup.reused() ? " [prepared, reused]" : " [prepared]";
+            return new QueryResult(result.isResultSet(), result.columns(), result.data(), result.updateCount(),
+                    result.message() + note);
+        } finally {
+            handle.attach(scriptStmt, conn.getBackendPID());
+        }
+    }
+
+    // Only a lone read-only query on a pooled connection; a pinned session may see its own
+    // uncommitted changes and session settings, which must not leak to other consoles
+    private QueryResultCache.Key cacheKey(List<ScriptStatement> script, String profile, ExecutionOptions options) {
+        if (!options.useResultCache() || options.session() != null || profile == null || script.size() != 1) {
+            return null;
+        }
+        ScriptStatement st = script.get(0);
+        if (st.kind() != ScriptStatement.Kind.QUERY) return null;
+        return resultCache.keyFor(profile, st.sql(), options.parameters());
+    }
+
+    private QueryResult replay(QueryResultCache.CachedResult hit, StreamListener listener, ExecutionHandle handle) {
+        ColumnarResult data = hit.result().data();
+        int rows = data.getRowCount();
+        handle.markCacheHit();
+        handle.statementProgress(1, 1);
+        handle.rowsFetched(rows);
+        listener.onStart(data);
+        if (rows > 0) listener.onRows(data, 0, rows);
+        return new QueryResult(true, hit.result().columns(), data, 0,
+                "Served from result cache (fetched " + hit.getAgeMillis() / 1000 + " s ago). " + rows + " rows.");
+    }
+
+    // Remembers whether the listener asked to stop, i.e. whether the result is partial
+    private static final class StopTracker implements StreamListener {
+        private final StreamListener delegate;
+        private boolean stopped;
+
+        StopTracker(StreamListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onStart(ColumnarResult result) {
+            delegate.onStart(result);
+        }
+
+        @Override
+        public boolean onRows(ColumnarResult result, int fromRow, int toRow) {
+            boolean more = delegate.onRows(result, fromRow, toRow);
+            if (!more) stopped = true;
+            return more;
+        }
+    }
+
+    private static SqlParameters.ParsedSql parameterized(ScriptStatement st, Map<String, String> binds) {
+        if (binds.isEmpty() || st.kind() == ScriptStatement.Kind.COPY_IN || st.kind() == ScriptStatement.Kind.COPY_OUT) {
+            return null;
+        }
+        SqlParameters.ParsedSql parsed = SqlParameters.parse(st.sql());
+        return parsed.hasParameters() ? parsed : null;
+    }
+
+    // Streams every result the executed statement produces; returns the last one
+    private QueryResult streamResults(Statement stmt, boolean isResultSet, int chunkSize, StreamListener listener,
+                                      ExecutionHandle handle) throws SQLException {
+        QueryResult last = null;
+        while (true) {
+            if (isResultSet) {
+                try (ResultSet rs = stmt.getResultSet()) {
+                    last = streamRows(rs, chunkSize, listener, handle);
+                }
+            } else {
+                int count = stmt.getUpdateCount();
+                if (count == -1) break; // No more results
+                last = new QueryResult(false, null, null, count, "Statement executed. Rows affected: " + count);
+            }
+            if (handle.isCancelRequested()) break;
+            isResultSet = stmt.getMoreResults();
+        }
+        return last != null ? last : new QueryResult(false, null, null, 0, "Statement executed.");
+    }
+
+    private long runBatch(Statement stmt, List<ScriptStatement> script, int from, int to) throws SQLException {
+        for (int k = from; k < to; k++) {
+            stmt.addBatch(script.get(k).sql());
+        }
+        try {
+            long rows = 0;
+            for (int count : stmt.executeBatch()) {
+                if (count > 0) rows += count;
+            }
+            return rows;
+        } finally {
+            stmt.clearBatch();
+        }
+    }
+
+    // Position of the failing statement inside a batch (0 for anything that was not a batch)
+    private static int failedOffset(SQLException e, int batchSize) {
+        if (!(e instanceof BatchUpdateException bue) || bue.getUpdateCounts() == null) return 0;
+        int[] counts = bue.getUpdateCounts();
+        for (int k = 0; k < counts.length; k++) {
+            if (counts[k] == Statement.EXECUTE_FAILED) return k;
+        }
+        return Math.min(counts.length, batchSize - 1);
+    }
+
+    private static SQLException withSessionHint(SQLException e, ExecutionOptions options) {
+        if (options.session() == null || !options.session().isTransactionFailed()) return e;
+        return new SQLException(e.getMessage()
+                + "\nThe transaction is aborted; roll back before running more statements.",
+                e.getSQLState(), e);
+    }
+
+    /**
+     * Rolls back a transaction left open on a pooled connection and restores autocommit.
+     * @return true if there was something to roll back.
+     */
+    private static boolean endOpenTransaction(Connection conn) throws SQLException {
+        BaseConnection pg = conn.unwrap(BaseConnection.class);
+        boolean open = pg.getTransactionState() != TransactionState.IDLE;
+        if (!conn.getAutoCommit()) {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        } else if (open) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ROLLBACK");
+            }
+        }
+        return open;
+    }
+
+    private QueryResult streamRows(ResultSet rs, int chunkSize, StreamListener listener,
+                                   ExecutionHandle handle) throws SQLException {
+        ColumnarResult data = ColumnarResult.fromMetaData(rs.getMetaData());
+        data.enableSpill(spillStore);
+        listener.onStart(data);
+
+        boolean stopped = false;
+        boolean truncated = false;
+        int chunkStart = 0;
+
+        try {
+            while (rs.next()) {
+                if (!data.appendRow(rs)) {
+                    truncated = true;
+                    break;
+                }
+
+                // Hand over exactly one fetch worth of rows, before the driver goes back to the server
+                int rows = data.getRowCount();
+                if (rows - chunkStart >= chunkSize) {
+                    handle.rowsFetched(rows);
+                    boolean more = listener.onRows(data, chunkStart, rows);
+                    chunkStart = rows;
+                    if (!more || handle.isCancelRequested()) {
+                        stopped = true;
+                        break;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            // A cancel arriving mid-fetch surfaces here; keep what was already fetched
+            if (!handle.isCancelRequested()) throw e;
+            stopped = true;
+        }
+
+        int total = data.getRowCount();
+        handle.rowsFetched(total);
+        if (total > chunkStart) {
+            listener.onRows(data, chunkStart, total);
+        }
+
+        String message;
+        if (truncated) {
+            message = "Result truncated at " + total + " rows: spill disk cap reached.";
+        } else if (handle.isCancelRequested()) {
+            message = "Query cancelled after " + total + " rows.";
+        } else if (stopped) {
+            message = "Fetch stopped after " + total + " rows.";
+        } else {
+            message = "Query executed successfully. " + total + " rows fetched.";
+        }
+        if (data.getSpilledRowCount() > 0) {
+            message += " (" + data.getSpilledRowCount() + " rows spilled to disk)";
+        }
+        return new QueryResult(true, data.getColumnNames(), data, 0, message);
+    }
+
+    private Connection connect(String profileName) throws SQLException {
+        return profileName == null ? dbManager.getConnection() : dbManager.getConnection(profileName);
+    }
+
+    // Server-side fallback when Statement.cancel() did not stop the backend
+    private void cancelBackend(String profileName, int backendPid) {
+        try (Connection conn = connect(profileName);
+             PreparedStatement stmt = conn.prepareStatement("SELECT pg_cancel_backend(?)")) {
+            stmt.setInt(1, backendPid);
+            stmt.execute();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
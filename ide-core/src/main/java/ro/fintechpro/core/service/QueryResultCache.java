@@ -0,0 +1,86 @@
+package ro.fintechpro.core.service;
+
+import ro.fintechpro.core.script.SqlAnalysis;
+import ro.fintechpro.core.script.SqlParameters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Opt-in client-side cache of read-only query results, keyed by (profile, normalized SQL, bound values).
+ * Entries are weighed by their in-memory size, expire after a TTL, and are dropped as soon as
+ * a statement on the same profile writes to one of the tables they read.
+ */
+public class QueryResultCache {
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000;
+
+    record Key(String profile, String sql, List<String> values) {}
+
+    /**
+     * A cached result and when it was fetched.
+     */
+    public record CachedResult(QueryExecutor.QueryResult result, Set<String> tables, long cachedAt) {
+        public long getAgeMillis() {
+            return System.currentTimeMillis() - cachedAt;
+        }
+    }
+
+    private final WeightedLruCache<Key, CachedResult> cache = new WeightedLruCache<>(
+            DEFAULT_MAX_BYTES, DEFAULT_TTL_MILLIS, c -> c.result().data().estimateBytes());
+
+    /**
+     * @return the key for a cacheable statement, or null if it must always go to the server.
+     */
+    Key keyFor(String profile, String sql, Map<String, String> parameters) {
+        if (!SqlAnalysis.isReadOnly(sql)) return null;
+        SqlParameters.ParsedSql parsed = SqlParameters.parse(sql);
+        List<String> values = new ArrayList<>(parsed.bindOrder().size());
+        for (String name : parsed.bindOrder()) {
+            if (parameters == null || !parameters.containsKey(name)) return null;
+            values.add(parameters.get(name));
+        }
+        return new Key(profile, parsed.jdbcSql(), values);
+    }
+
+    CachedResult get(Key key) {
+        CachedResult cached = cache.get(key);
+        if (cached != null && cached.result().isResultSet() && cached.result().data().hasEvictedRows()) {
+            cache.remove(key); // Part of it is gone from disk
+            return null;
+        }
+        return cached;
+    }
+
+    void put(Key key, String sql, QueryExecutor.QueryResult result) {
+        cache.put(key, new CachedResult(result, SqlAnalysis.tablesRead(sql), System.currentTimeMillis()));
+    }
+
+    /**
+     * Drops the profile's entries that read any of the tables; null tables means all of them.
+     */
+    void invalidate(String profile, Set<String> tables) {
+        if (cache.isEmpty()) return;
+        cache.removeIf((key, entry) -> key.profile().equals(profile)
+                && (tables == null || entry.tables().stream().anyMatch(tables::contains)));
+    }
+
+    boolean isEmpty() { return cache.isEmpty(); }
+
+    public void clear() { cache.clear(); }
+
+    public long getMaxBytes() { return cache.getMaxWeight(); }
+
+    public void setMaxBytes(long maxBytes) { cache.setMaxWeight(maxBytes); }
+
+    public long getTtlMillis() { return cache.getTtlMillis(); }
+
+    public void setTtlMillis(long ttlMillis) { cache.setTtlMillis(ttlMillis); }
+
+    public long getHits() { return cache.getHits(); }
+
+    public long getMisses() { return cache.getMisses(); }
+}
@@ -0,0 +1,129 @@
+package ro.fintechpro.core.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * On-disk form of a {@link LocalIndexService}: one section per schema, each tagged with the schema
+ * fingerprint it was built from.
+ *
+ * <pre>
+ * header     int magic, int version
+ * sections   one {@link IndexSegment} each
+ * directory  int count, count x (string schema, string fingerprint, long offset, int length)
+ * trailer    long directoryOffset
+ * </pre>
+ * Sections are read into heap buffers and bulk-copied into arrays, so opening an index costs about
+ * as much as reading the file; nothing is re-tokenized. Nothing is mapped, as Windows refuses to
+ * replace a file while a mapping of it is alive.
+ */
+final class SearchIndexFile {
+
+    private static final int MAGIC = 0x50474449; // "PGDI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4;
+
+    private SearchIndexFile() {}
+
+    /**
+     * Writes next to the target and moves it into place, so readers never see half a file.
+     * Each call writes its own temporary file.
+     */
+    static void write(Collection<IndexSegment> segments, Path file) throws IOException {
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                writeTo(channel, segments);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    private static void writeTo(FileChannel channel, Collection<IndexSegment> segments) throws IOException {
+        writeFully(channel, ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip());
+
+        // 1. Sections, one buffer at a time
+        long[] offsets = new long[segments.size()];
+        int[] lengths = new int[segments.size()];
+        int dirBytes = 4;
+        int i = 0;
+        for (IndexSegment segment : segments) {
+            ByteBuffer section = ByteBuffer.allocate(segment.byteSize());
+            segment.writeTo(section);
+            offsets[i] = channel.position();
+            lengths[i] = section.capacity();
+            writeFully(channel, section.flip());
+            dirBytes += IndexSegment.stringBytes(segment.schema) + IndexSegment.stringBytes(segment.fingerprint) + 8 + 4;
+            i++;
+        }
+
+        // 2. Directory and trailer
+        long directoryOffset = channel.position();
+        ByteBuffer directory = ByteBuffer.allocate(dirBytes + 8);
+        directory.putInt(segments.size());
+        i = 0;
+        for (IndexSegment segment : segments) {
+            IndexSegment.putString(directory, segment.schema);
+            IndexSegment.putString(directory, segment.fingerprint);
+            directory.putLong(offsets[i]).putInt(lengths[i]);
+            i++;
+        }
+        directory.putLong(directoryOffset);
+        writeFully(channel, directory.flip());
+    }
+
+    /**
+     * @return the segments, or an empty list if the file is missing, from another format version, or damaged.
+     */
+    static List<IndexSegment> read(Path file) {
+        if (!Files.isRegularFile(file)) return List.of();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + 4 + 8) return List.of();
+            ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) return List.of();
+
+            long directoryOffset = readFully(channel, size - 8, 8).getLong(0);
+            if (directoryOffset < HEADER_BYTES || directoryOffset > size - 8 - 4) return List.of();
+            ByteBuffer directory = readFully(channel, directoryOffset, Math.toIntExact(size - 8 - directoryOffset));
+            int count = directory.getInt();
+            List<IndexSegment> segments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String schema = IndexSegment.getString(directory);
+                String fingerprint = IndexSegment.getString(directory);
+                long offset = directory.getLong();
+                int length = directory.getInt();
+                // Each section gets its own buffer, so the file may exceed what one buffer can hold
+                ByteBuffer section = readFully(channel, offset, length);
+                segments.add(IndexSegment.readFrom(schema, fingerprint, section));
+            }
+            return segments;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return List.of();
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Search index truncated");
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+}
@@ -0,0 +1,157 @@
+package ro.fintechpro.core.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Runs search-as-you-type off the caller's thread. Input is debounced, each search runs on a
+ * virtual thread, and a newer query cancels the pending or running one, so only the latest
+ * query's results are ever delivered.
+ *
+ * @param <T> what a search returns
+ */
+public class SearchPipeline<T> {
+
+    public static final long DEBOUNCE_MILLIS = 120;
+    private static final int LATENCY_SAMPLES = 1024;
+
+    /**
+     * @param searchMillis time spent in the index
+     * @param totalMillis  time from the keystroke to the results, debounce included
+     */
+    public record Result<T>(String query, T results, double searchMillis, double totalMillis) {}
+
+    /**
+     * A search that gives up early (with any result) once {@code cancelled} returns true.
+     */
+    @FunctionalInterface
+    public interface Search<T> {
+        T search(String query, BooleanSupplier cancelled) throws Exception;
+    }
+
+    public record LatencyStats(int count, double p50, double p90, double p99, double max) {
+        @Override
+        public String toString() {
+            if (count == 0) return "no searches yet";
+            return String.format("%d searches, p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms", count, p50, p90, p99, max);
+        }
+    }
+
+    private final Search<T> search;
+    private final T noResults;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "search-debounce");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private long generation;
+    private ScheduledFuture<?> pending;
+    private Future<?> running;
+
+    // Ring buffer of recent search times
+    private final double[] samples = new double[LATENCY_SAMPLES];
+    private int sampleCount;
+    private int nextSample;
+
+    /**
+     * @param noResults the answer to a blank query
+     */
+    public SearchPipeline(Search<T> search, T noResults) {
+        this.search = search;
+        this.noResults = noResults;
+    }
+
+    /**
+     * Schedules a search for {@code query}, superseding any earlier one. {@code onResult} is called
+     * on a background thread, and only if no newer query was submitted meanwhile.
+     * A blank query is answered at once with no results.
+     */
+    public synchronized void submit(String query, Consumer<Result<T>> onResult) {
+        long submitted = System.nanoTime();
+        long id = ++generation;
+        cancelInFlight();
+
+        if (query == null || query.isBlank()) {
+            onResult.accept(new Result<>(query, noResults, 0, 0));
+            return;
+        }
+        pending = scheduler.schedule(() -> start(id, query, submitted, onResult), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void cancel() {
+        generation++;
+        cancelInFlight();
+    }
+
+    public synchronized LatencyStats getLatencyStats() {
+        if (sampleCount == 0) return new LatencyStats(0, 0, 0, 0, 0);
+        double[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        return new LatencyStats(sampleCount, percentile(sorted, 0.50), percentile(sorted, 0.90),
+                percentile(sorted, 0.99), sorted[sorted.length - 1]);
+    }
+
+    public void shutdown() {
+        cancel();
+        scheduler.shutdownNow();
+        searchExecutor.shutdownNow();
+    }
+
+    private synchronized void start(long id, String query, long submitted, Consumer<Result<T>> onResult) {
+        if (id != generation) return;
+        pending = null;
+        running = searchExecutor.submit(() -> {
+            long start = System.nanoTime();
+            T results;
+            try {
+                // The search polls this, so a superseded scan over a large candidate set stops early
+                results = search.search(query, () -> isStale(id));
+            } catch (Exception e) {
+                if (!isStale(id)) e.printStackTrace();
+                return;
+            }
+            long end = System.nanoTime();
+            if (isStale(id)) return;
+
+            double searchMillis = (end - start) / 1e6;
+            record(searchMillis);
+            onResult.accept(new Result<>(query, results, searchMillis, (end - submitted) / 1e6));
+        });
+    }
+
+    private synchronized boolean isStale(long id) {
+        return id != generation;
+    }
+
+    private void cancelInFlight() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+    }
+
+    private synchronized void record(double millis) {
+        samples[nextSample] = millis;
+        nextSample = (nextSample + 1) % samples.length;
+        sampleCount = Math.min(sampleCount + 1, samples.length);
+    }
+
+    // Nearest-rank percentile over sorted samples
+    private static double percentile(double[] sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
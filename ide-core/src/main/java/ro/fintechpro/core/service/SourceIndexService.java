@@ -0,0 +1,325 @@
+package ro.fintechpro.core.service;
+
+import ro.fintechpro.core.db.DataSourceManager;
+import ro.fintechpro.core.model.SidebarItem;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Find usages" for tables and columns, answered locally from two sources:
+ * <ul>
+ *   <li>the dependency edges PostgreSQL records in pg_depend (views, and routines with a SQL-standard body);</li>
+ *   <li>an inverted index of the identifiers in every routine body and view definition, for the
+ *       PL/pgSQL and dynamic SQL that pg_depend does not track.</li>
+ * </ul>
+ * {@link #refresh()} is incremental: it lists (oid, xmin) of all routines and views, and only fetches
+ * the definitions that are new or changed, in one set-based query per catalog.
+ */
+public class SourceIndexService {
+
+    public enum Match { DEPENDENCY, REFERENCE }
+
+    /**
+     * @param type {@link SidebarItem#TYPE_FUNCTION}, {@link SidebarItem#TYPE_PROCEDURE} or {@link SidebarItem#TYPE_VIEW}
+     */
+    public record Usage(String schema, String name, String type, Match match) {}
+
+    public record RefreshStats(int sources, int fetched, int removed, int edges, long millis) {}
+
+    // Keyed by catalog and oid (routine and relation oids may collide)
+    private record Source(long key, long xmin, String schema, String name, String type, String[] tokens) {}
+
+    // One dependency of a view or routine on a relation (column null: the relation as a whole)
+    private record Edge(String column, long dependent) {}
+
+    private static final long RELATION_KEY = 1L << 32;
+
+    private static final String USER_SCHEMAS = "n.nspname <> 'information_schema' AND n.nspname NOT LIKE 'pg\\_%'";
+
+    private static final String VERSIONS_SQL = """
+            SELECT p.oid, p.xmin::text::bigint, n.nspname, p.proname, p.prokind, FALSE
+            FROM pg_catalog.pg_proc p
+            JOIN pg_catalog.pg_namespace n ON n.oid = p.pronamespace
+            WHERE p.prokind IN ('f', 'p') AND %1$s
+            UNION ALL
+            SELECT c.oid, c.xmin::text::bigint, n.nspname, c.relname, c.relkind, TRUE
+            FROM pg_catalog.pg_class c
+            JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+            WHERE c.relkind IN ('v', 'm') AND %1$s""".formatted(USER_SCHEMAS);
+
+    // prosrc is empty for SQL-standard bodies (BEGIN ATOMIC); those are rebuilt from the parse tree
+    private static final String ROUTINE_SOURCES_SQL = """
+            SELECT p.oid, CASE WHEN p.prosrc = '' THEN pg_catalog.pg_get_functiondef(p.oid) ELSE p.prosrc END
+            FROM pg_catalog.pg_proc p
+            WHERE p.oid = ANY (?::oid[])""";
+
+    private static final String VIEW_SOURCES_SQL = """
+            SELECT c.oid, pg_catalog.pg_get_viewdef(c.oid)
+            FROM pg_catalog.pg_class c
+            WHERE c.oid = ANY (?::oid[])""";
+
+    // Views depend on relations through their rewrite rule; routines directly
+    private static final String EDGES_SQL = """
+            SELECT rn.nspname, rc.relname, ra.attname, coalesce(v.oid, p.oid), v.oid IS NOT NULL
+            FROM pg_catalog.pg_depend d
+            JOIN pg_catalog.pg_class rc ON rc.oid = d.refobjid
+            JOIN pg_catalog.pg_namespace rn ON rn.oid = rc.relnamespace
+            LEFT JOIN pg_catalog.pg_attribute ra ON ra.attrelid = rc.oid AND ra.attnum = d.refobjsubid AND d.refobjsubid > 0
+            LEFT JOIN pg_catalog.pg_rewrite r ON d.classid = 'pg_catalog.pg_rewrite'::regclass AND r.oid = d.objid
+            LEFT JOIN pg_catalog.pg_class v ON v.oid = r.ev_class AND v.oid <> rc.oid
+            LEFT JOIN pg_catalog.pg_proc p ON d.classid = 'pg_catalog.pg_proc'::regclass AND p.oid = d.objid
+            WHERE d.refclassid = 'pg_catalog.pg_class'::regclass AND d.deptype = 'n'
+              AND (v.oid IS NOT NULL OR p.oid IS NOT NULL)
+              AND rn.nspname <> 'information_schema' AND rn.nspname NOT LIKE 'pg\\_%'""";
+
+    private final DataSourceManager dbManager;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Source> sources = new HashMap<>();
+    private final Map<Long, Integer> ids = new HashMap<>();   // Source key -> bit in the postings
+    private final List<Long> keysById = new ArrayList<>();
+    private final BitSet freeIds = new BitSet();              // Bits of removed sources, handed out again first
+    private final Map<String, BitSet> postings = new HashMap<>();
+    private Map<String, List<Edge>> edges = Map.of();        // "schema.relation" -> edges
+    private boolean loaded;
+
+    public SourceIndexService(DataSourceManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getSourceCount() {
+        lock.readLock().lock();
+        try {
+            return sources.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            sources.clear();
+            ids.clear();
+            keysById.clear();
+            freeIds.clear();
+            postings.clear();
+            edges = Map.of();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Brings the index up to date with the active connection; the first call loads everything.
+     */
+    public synchronized RefreshStats refresh() throws SQLException {
+        long start = System.currentTimeMillis();
+        try (Connection conn = dbManager.getConnection()) {
+            // 1. Versions of every routine and view
+            Map<Long, Source> current = new HashMap<>();
+            try (PreparedStatement ps = conn.prepareStatement(VERSIONS_SQL);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    boolean relation = rs.getBoolean(6);
+                    long key = rs.getLong(1) | (relation ? RELATION_KEY : 0);
+                    String kind = rs.getString(5);
+                    String type = relation ? SidebarItem.TYPE_VIEW
+                            : "p".equals(kind) ? SidebarItem.TYPE_PROCEDURE : SidebarItem.TYPE_FUNCTION;
+                    current.put(key, new Source(key, rs.getLong(2), rs.getString(3), rs.getString(4), type, null));
+                }
+            }
+
+            // 2. Definitions of the new and changed ones only
+            List<Long> changedRoutines = new ArrayList<>();
+            List<Long> changedViews = new ArrayList<>();
+            Set<Long> removed = new LinkedHashSet<>();
+            lock.readLock().lock();
+            try {
+                for (Source s : current.values()) {
+                    Source known = sources.get(s.key());
+                    if (known != null && known.xmin() == s.xmin()) continue;
+                    if ((s.key() & RELATION_KEY) != 0) changedViews.add(s.key() & ~RELATION_KEY);
+                    else changedRoutines.add(s.key());
+                }
+                for (Long key : sources.keySet()) {
+                    if (!current.containsKey(key)) removed.add(key);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            Map<Long, String> definitions = new HashMap<>();
+            fetchDefinitions(conn, ROUTINE_SOURCES_SQL, changedRoutines, 0, definitions);
+            fetchDefinitions(conn, VIEW_SOURCES_SQL, changedViews, RELATION_KEY, definitions);
+
+            // 3. Dependency edges are small enough to reload whole
+            Map<String, List<Edge>> freshEdges = new HashMap<>();
+            int edgeCount = 0;
+            try (PreparedStatement ps = conn.prepareStatement(EDGES_SQL);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long dependent = rs.getLong(4) | (rs.getBoolean(5) ? RELATION_KEY : 0);
+                    freshEdges.computeIfAbsent(qualified(rs.getString(1), rs.getString(2)), k -> new ArrayList<>())
+                            .add(new Edge(rs.getString(3), dependent));
+                    edgeCount++;
+                }
+            }
+
+            // 4. Swap in
+            lock.writeLock().lock();
+            try {
+                for (Long key : removed) remove(key);
+                definitions.forEach((key, definition) -> {
+                    Source s = current.get(key);
+                    remove(key);
+                    add(new Source(key, s.xmin(), s.schema(), s.name(), s.type(), tokenize(definition)));
+                });
+                edges = freshEdges;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return new RefreshStats(current.size(), definitions.size(), removed.size(), edgeCount,
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Views and routines using a table or view, or one of its columns: recorded dependencies first,
+     * then bodies that mention the name (together with the column, if one is given).
+     */
+    public List<Usage> findUsages(String schema, String relation, String column) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Usage> usages = new LinkedHashMap<>();
+            for (Edge e : edges.getOrDefault(qualified(schema, relation), List.of())) {
+                if (column != null && !column.equalsIgnoreCase(e.column())) continue;
+                Source s = sources.get(e.dependent());
+                if (s != null) usages.putIfAbsent(s.key(), usage(s, Match.DEPENDENCY));
+            }
+
+            BitSet hits = postingsOf(relation);
+            if (column != null) hits.and(postingsOf(column));
+            // Same-schema and schema-qualified mentions are the likelier ones: list them first
+            BitSet likely = (BitSet) hits.clone();
+            likely.and(postingsOf(schema));
+            List<Usage> references = new ArrayList<>();
+            List<Usage> others = new ArrayList<>();
+            for (int id = hits.nextSetBit(0); id >= 0; id = hits.nextSetBit(id + 1)) {
+                Source s = sources.get(keysById.get(id));
+                if (s == null || usages.containsKey(s.key())) continue;
+                (likely.get(id) || schema.equals(s.schema()) ? references : others).add(usage(s, Match.REFERENCE));
+            }
+            List<Usage> result = new ArrayList<>(usages.values());
+            result.addAll(references);
+            result.addAll(others);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void fetchDefinitions(Connection conn, String sql, List<Long> oids, long keyFlag,
+                                  Map<Long, String> out) throws SQLException {
+        if (oids.isEmpty()) return;
+        Array array = conn.createArrayOf("int8", oids.toArray());
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setArray(1, array);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String definition = rs.getString(2);
+                    out.put(rs.getLong(1) | keyFlag, definition != null ? definition : "");
+                }
+            }
+        } finally {
+            array.free();
+        }
+    }
+
+    private void add(Source s) {
+        // Reuse the lowest freed bit, so the postings never outgrow the most sources indexed at once
+        int id = freeIds.nextSetBit(0);
+        if (id >= 0) {
+            freeIds.clear(id);
+            keysById.set(id, s.key());
+        } else {
+            id = keysById.size();
+            keysById.add(s.key());
+        }
+        ids.put(s.key(), id);
+        sources.put(s.key(), s);
+        for (String token : s.tokens()) postings.computeIfAbsent(token, k -> new BitSet()).set(id);
+    }
+
+    private void remove(long key) {
+        Source old = sources.remove(key);
+        Integer id = ids.remove(key);
+        if (old == null || id == null) return;
+        for (String token : old.tokens()) {
+            BitSet bits = postings.get(token);
+            if (bits == null) continue;
+            bits.clear(id);
+            if (bits.isEmpty()) postings.remove(token);
+        }
+        freeIds.set(id);
+    }
+
+    private BitSet postingsOf(String name) {
+        BitSet bits = postings.get(name.toLowerCase(Locale.ROOT));
+        return bits != null ? (BitSet) bits.clone() : new BitSet();
+    }
+
+    private static Usage usage(Source s, Match match) {
+        return new Usage(s.schema(), s.name(), s.type(), match);
+    }
+
+    private static String qualified(String schema, String relation) {
+        return schema + "." + relation;
+    }
+
+    /**
+     * Distinct lower-cased identifiers, quoted ones included; comments and string literals are
+     * tokenized too, since dynamic SQL lives in strings.
+     */
+    static String[] tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            char c = text.charAt(i);
+            if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < n && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_' || text.charAt(i) == '$')) i++;
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i++;
+            }
+        }
+        return tokens.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,82 @@
+package ro.fintechpro.core.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Records how long named stages take, relative to when the timings were created.
+ * Stages may run concurrently; milestones (e.g. first interaction) are stages of zero length.
+ */
+public class StageTimings {
+
+    public record Stage(String name, long startMillis, long durationMillis, boolean failed) {
+        public long endMillis() { return startMillis + durationMillis; }
+    }
+
+    public interface Work {
+        void run() throws Exception;
+    }
+
+    private final long origin = System.nanoTime();
+    private final List<Stage> stages = new ArrayList<>();
+
+    public <T> T time(String name, Callable<T> work) throws Exception {
+        long start = elapsedMillis();
+        boolean failed = true;
+        try {
+            T result = work.call();
+            failed = false;
+            return result;
+        } finally {
+            record(new Stage(name, start, elapsedMillis() - start, failed));
+        }
+    }
+
+    public void run(String name, Work work) throws Exception {
+        time(name, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public void mark(String name) {
+        record(new Stage(name, elapsedMillis(), 0, false));
+    }
+
+    /**
+     * @return when the milestone or stage ended, or -1 if it has not happened.
+     */
+    public synchronized long endOf(String name) {
+        for (Stage s : stages) {
+            if (s.name().equals(name)) return s.endMillis();
+        }
+        return -1;
+    }
+
+    public synchronized List<Stage> getStages() {
+        return List.copyOf(stages);
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - origin) / 1_000_000;
+    }
+
+    /**
+     * One line per stage, in start order: "  120 ms +  340 ms  introspect".
+     */
+    public synchronized String report() {
+        List<Stage> sorted = new ArrayList<>(stages);
+        sorted.sort((a, b) -> Long.compare(a.startMillis(), b.startMillis()));
+        StringBuilder sb = new StringBuilder();
+        for (Stage s : sorted) {
+            sb.append(String.format("%6d ms +%6d ms  %s%s%n", s.startMillis(), s.durationMillis(), s.name(),
+                    s.failed() ? " (failed)" : ""));
+        }
+        return sb.toString();
+    }
+
+    private synchronized void record(Stage stage) {
+        stages.add(stage);
+    }
+}
@@ -0,0 +1,507 @@
+package ro.fintechpro.core.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Name search over trigram postings kept in primitive int arrays. Ids are handed out in insertion
+ * order, so every posting list is sorted and lists intersect with a merge.
+ * <p>
+ * Names live back to back in one char arena (plus an end offset per id) rather than as one String
+ * each; matching lower-cases on the fly. Three kinds of trigrams are indexed per name (lower-cased):
+ * <ul>
+ *   <li>every substring trigram, for queries of three or more characters;</li>
+ *   <li>padded word starts ("\0\0u", "\0us" for each word of user_accounts / userAccounts),
+ *       so one- and two-character queries match the start of a word;</li>
+ *   <li>padded trigrams of the word initials ("ua" for user_accounts), in a separate key space,
+ *       so "ua" or "uac" find user_accounts and UserAccountCache.</li>
+ * </ul>
+ * Not thread-safe while names are added; {@link LocalIndexService} publishes an index to searches
+ * only once it is built, or adds to it under its write lock.
+ */
+final class TrigramIndex {
+
+    private static final char PAD = '\0';
+    private static final long INITIALS_SPACE = 1L << 48;
+
+    // Relevance tiers, best first
+    private static final int EXACT = 5, PREFIX = 4, WORD_START = 3, INITIALS = 2, SUBSTRING = 1;
+
+    /** Ids must fit the 24 bits a {@link TopK} entry has for them. */
+    static final int MAX_IDS = 1 << 24;
+
+    private char[] chars = new char[512];
+    private int[] ends = new int[64];
+    private int size;
+    private final GramTable grams = new GramTable();
+
+    int add(String name) {
+        if (size == MAX_IDS) throw new IllegalStateException("Index segment is full");
+        if (size == ends.length) ends = Arrays.copyOf(ends, size * 2);
+        int start = end(size - 1);
+        int n = name.length();
+        if (start + n > chars.length) chars = Arrays.copyOf(chars, Math.max(chars.length * 2, start + n));
+        name.getChars(0, n, chars, start);
+        int id = size++;
+        ends[id] = start + n;
+
+        for (int i = 0; i + 2 < n; i++) {
+            grams.add(key(lower(start + i), lower(start + i + 1), lower(start + i + 2)), id);
+        }
+        StringBuilder initials = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (!isWordStart(start, i)) continue;
+            initials.append(lower(start + i));
+            grams.add(key(PAD, PAD, lower(start + i)), id);
+            if (i + 1 < n && isWordChar(chars[start + i + 1])) {
+                grams.add(key(PAD, lower(start + i), lower(start + i + 1)), id);
+            }
+        }
+        if (initials.length() >= 2) {
+            String padded = PAD + initials.toString();
+            for (int i = 0; i + 2 < padded.length(); i++) {
+                grams.add(INITIALS_SPACE | key(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)), id);
+            }
+        }
+        return id;
+    }
+
+    String name(int id) {
+        int start = end(id - 1);
+        return new String(chars, start, ends[id] - start);
+    }
+
+    int size() { return size; }
+
+    /**
+     * Offers every match of {@code query} to {@code best}, tagged with {@code segment}.
+     * @return false if {@code cancelled} turned true before the scan finished.
+     */
+    boolean search(String query, int segment, TopK best, BooleanSupplier cancelled) {
+        String q = fold(query.trim());
+        if (q.isEmpty() || size == 0) return true;
+
+        // 1. Candidates: substring / word-start postings, plus initials postings
+        int[] candidates;
+        if (q.length() >= 3) {
+            long[] keys = new long[q.length() - 2];
+            for (int i = 0; i + 2 < q.length(); i++) keys[i] = key(q.charAt(i), q.charAt(i + 1), q.charAt(i + 2));
+            candidates = grams.intersect(keys);
+        } else {
+            candidates = grams.intersect(new long[]{q.length() == 1 ? key(PAD, PAD, q.charAt(0)) : key(PAD, q.charAt(0), q.charAt(1))});
+        }
+        if (q.length() >= 2 && q.chars().allMatch(c -> isWordChar((char) c))) {
+            String padded = PAD + q;
+            long[] keys = new long[padded.length() - 2];
+            for (int i = 0; i + 2 < padded.length(); i++) {
+                keys[i] = INITIALS_SPACE | key(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2));
+            }
+            candidates = union(candidates, grams.intersect(keys));
+        }
+
+        // 2. Verify and rank. Once the heap is full, names that cannot beat its weakest entry are
+        //    dropped as early as their length allows (ids come in ascending order, so a tie loses).
+        for (int i = 0; i < candidates.length; i++) {
+            if ((i & 0xFFF) == 0xFFF && cancelled.getAsBoolean()) return false;
+            int id = candidates[i];
+            int score = score(id, q, best.floor());
+            if (score >= 0) best.offer(TopK.pack(score, segment, id));
+        }
+        return true;
+    }
+
+    /**
+     * Tier first, then earlier match and shorter name.
+     * @return -1 when the name does not match, or cannot score above {@code floor}.
+     */
+    private int score(int id, String q, int floor) {
+        int start = end(id - 1);
+        int length = ends[id] - start;
+        int lengthTerm = 0xFF - Math.min(length, 0xFF);
+        int position;
+
+        // Each tier is only tried if its best possible score (match at the earliest position) beats the floor
+        int prefixTier = length == q.length() ? EXACT : PREFIX;
+        if ((prefixTier << 16 | 0xFF00 | lengthTerm) <= floor) return -1;
+        if (matchesAt(start, length, 0, q)) return prefixTier << 16 | 0xFF00 | lengthTerm;
+
+        if ((WORD_START << 16 | 0xFE00 | lengthTerm) <= floor) return -1;
+        if ((position = wordStartMatch(start, length, q)) >= 0) return WORD_START << 16 | positionTerm(position) | lengthTerm;
+
+        if ((INITIALS << 16 | 0xFF00 | lengthTerm) <= floor) return -1;
+        if (initialsStartWith(start, length, q)) return INITIALS << 16 | 0xFF00 | lengthTerm;
+
+        if ((SUBSTRING << 16 | 0xFE00 | lengthTerm) <= floor) return -1;
+        if ((position = indexOf(start, length, q, 1)) >= 0) return SUBSTRING << 16 | positionTerm(position) | lengthTerm;
+        return -1;
+    }
+
+    private static int positionTerm(int position) {
+        return (0xFF - Math.min(position, 0xFF)) << 8;
+    }
+
+    private int end(int id) {
+        return id < 0 ? 0 : ends[id];
+    }
+
+    private char lower(int at) {
+        return lower(chars[at]);
+    }
+
+    // Char by char, as names are folded, so the query never meets locale rules (Turkish "I" -> dotless i)
+    private static String fold(String s) {
+        char[] folded = new char[s.length()];
+        for (int i = 0; i < folded.length; i++) folded[i] = lower(s.charAt(i));
+        return new String(folded);
+    }
+
+    private static char lower(char c) {
+        if (c < 128) return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c; // Identifiers are nearly always ASCII
+        return Character.toLowerCase(c);
+    }
+
+    private boolean matchesAt(int start, int length, int at, String q) {
+        if (at + q.length() > length) return false;
+        for (int i = 0; i < q.length(); i++) {
+            if (lower(start + at + i) != q.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private int indexOf(int start, int length, String q, int from) {
+        for (int at = from; at + q.length() <= length; at++) {
+            if (matchesAt(start, length, at, q)) return at;
+        }
+        return -1;
+    }
+
+    private int wordStartMatch(int start, int length, String q) {
+        for (int at = 1; at + q.length() <= length; at++) {
+            if (isWordStart(start, at) && matchesAt(start, length, at, q)) return at;
+        }
+        return -1;
+    }
+
+    private boolean initialsStartWith(int start, int length, String q) {
+        int matched = 0;
+        for (int i = 0; i < length && matched < q.length(); i++) {
+            if (!isWordStart(start, i)) continue;
+            if (lower(start + i) != q.charAt(matched)) return false;
+            matched++;
+        }
+        return matched == q.length();
+    }
+
+    // First char, first char after a separator or digit run, or an upper-case letter after a lower-case one
+    private boolean isWordStart(int start, int i) {
+        char c = chars[start + i];
+        if (!isWordChar(c)) return false;
+        if (i == 0) return true;
+        char prev = chars[start + i - 1];
+        if (!isWordChar(prev)) return true;
+        if (Character.isUpperCase(c) && Character.isLowerCase(prev)) return true;
+        return Character.isLetter(c) && Character.isDigit(prev);
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    private static long key(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (b.length == 0) return a;
+        if (a.length == 0) return b;
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) out[k++] = a[i++];
+            else if (a[i] > b[j]) out[k++] = b[j++];
+            else { out[k++] = a[i++]; j++; }
+        }
+        while (i < a.length) out[k++] = a[i++];
+        while (j < b.length) out[k++] = b[j++];
+        return Arrays.copyOf(out, k);
+    }
+
+    /**
+     * Approximate heap footprint: the arena, the offsets and the posting tables.
+     */
+    long estimateBytes() {
+        return 16L + 2L * chars.length + 16L + 4L * ends.length + grams.estimateBytes();
+    }
+
+    // --- Serialization: int size, int charCount, chars, ends, then the gram table ---
+
+    int byteSize() {
+        return 4 + 4 + 2 * end(size - 1) + 4 * size + grams.byteSize();
+    }
+
+    void writeTo(ByteBuffer out) {
+        int charCount = end(size - 1);
+        out.putInt(size).putInt(charCount);
+        out.asCharBuffer().put(chars, 0, charCount);
+        out.position(out.position() + 2 * charCount);
+        out.asIntBuffer().put(ends, 0, size);
+        out.position(out.position() + 4 * size);
+        grams.writeTo(out);
+    }
+
+    /**
+     * Bulk-copies an index written by {@link #writeTo}, without re-deriving any trigram.
+     */
+    static TrigramIndex readFrom(ByteBuffer in) {
+        TrigramIndex index = new TrigramIndex();
+        index.size = in.getInt();
+        int charCount = in.getInt();
+        index.chars = new char[Math.max(charCount, 16)];
+        in.asCharBuffer().get(index.chars, 0, charCount);
+        in.position(in.position() + 2 * charCount);
+        index.ends = new int[Math.max(index.size, 16)];
+        in.asIntBuffer().get(index.ends, 0, index.size);
+        in.position(in.position() + 4 * index.size);
+        index.grams.readFrom(in);
+        return index;
+    }
+
+    /**
+     * Fixed-size min-heap of matches from one or more indexes, packed as
+     * score (19 bits) | segment (20 bits) | id (24 bits), so a plain long comparison ranks them;
+     * on equal scores the lower segment and id win.
+     * Heaps filled in parallel for one merged result can share a floor: the best minimum of any full heap.
+     */
+    static final class TopK {
+        static final int MAX_SEGMENTS = 1 << 20;
+
+        private final long[] heap;
+        private int size;
+        private final AtomicInteger sharedFloor; // Or null
+
+        TopK(int capacity) {
+            this(capacity, null);
+        }
+
+        TopK(int capacity, AtomicInteger sharedFloor) {
+            heap = new long[Math.max(1, capacity)];
+            this.sharedFloor = sharedFloor;
+        }
+
+        /**
+         * Scores at or below this cannot make it into the results.
+         */
+        int floor() {
+            int own = isFull() ? scoreOf(heap[0]) : -1;
+            if (sharedFloor == null) return own;
+            // Other heaps' entries are ordered by the merge, so only a strictly lower score is out
+            return Math.max(own, sharedFloor.get() - 1);
+        }
+
+        static long pack(int score, int segment, int id) {
+            return (long) score << 44 | (long) (MAX_SEGMENTS - 1 - segment) << 24 | (MAX_IDS - 1 - id);
+        }
+
+        static int scoreOf(long packed) {
+            return (int) (packed >>> 44);
+        }
+
+        static int segmentOf(long packed) {
+            return MAX_SEGMENTS - 1 - (int) (packed >>> 24 & (MAX_SEGMENTS - 1));
+        }
+
+        static int idOf(long packed) {
+            return MAX_IDS - 1 - (int) (packed & (MAX_IDS - 1));
+        }
+
+        boolean isFull() { return size == heap.length; }
+
+        long min() { return heap[0]; }
+
+        void offer(long value) {
+            if (size < heap.length) {
+                int i = size++;
+                while (i > 0 && heap[(i - 1) / 2] > value) {
+                    heap[i] = heap[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                heap[i] = value;
+            } else if (value > heap[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) break;
+                    if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                    if (heap[child] >= value) break;
+                    heap[i] = heap[child];
+                    i = child;
+                }
+                heap[i] = value;
+            }
+            if (sharedFloor != null && size == heap.length) {
+                int min = scoreOf(heap[0]);
+                if (sharedFloor.get() < min) sharedFloor.accumulateAndGet(min, Math::max);
+            }
+        }
+
+        long[] sortedDescending() {
+            long[] out = Arrays.copyOf(heap, size);
+            Arrays.sort(out);
+            for (int i = 0, j = out.length - 1; i < j; i++, j--) {
+                long t = out[i];
+                out[i] = out[j];
+                out[j] = t;
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Open-addressing map from trigram key to a growable, sorted int posting list.
+     */
+    private static final class GramTable {
+        private long[] keys = newKeys(256);
+        private int[][] postings = new int[256][];
+        private int[] sizes = new int[256];
+        private int count;
+
+        void add(long key, int id) {
+            int slot = slot(key, true);
+            int[] list = postings[slot];
+            int n = sizes[slot];
+            if (n > 0 && list[n - 1] == id) return; // Same trigram twice in one name
+            if (list == null) {
+                list = postings[slot] = new int[2];
+            } else if (n == list.length) {
+                list = postings[slot] = Arrays.copyOf(list, n + (n >> 1) + 1);
+            }
+            list[n] = id;
+            sizes[slot] = n + 1;
+        }
+
+        /**
+         * Ids present in every key's postings, smallest list first.
+         */
+        int[] intersect(long[] queryKeys) {
+            int[] slots = new int[queryKeys.length];
+            for (int i = 0; i < queryKeys.length; i++) {
+                slots[i] = slot(queryKeys[i], false);
+                if (slots[i] < 0) return new int[0];
+            }
+            // A query has a handful of trigrams: insertion sort by list size
+            int[] order = slots;
+            for (int i = 1; i < order.length; i++) {
+                int slot = order[i];
+                int j = i - 1;
+                while (j >= 0 && sizes[order[j]] > sizes[slot]) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = slot;
+            }
+
+            int[] result = Arrays.copyOf(postings[order[0]], sizes[order[0]]);
+            int n = result.length;
+            for (int k = 1; k < order.length && n > 0; k++) {
+                int[] list = postings[order[k]];
+                int size = sizes[order[k]];
+                int out = 0, j = 0;
+                for (int i = 0; i < n && j < size; ) {
+                    if (result[i] < list[j]) i++;
+                    else if (result[i] > list[j]) j++;
+                    else { result[out++] = result[i++]; j++; }
+                }
+                n = out;
+            }
+            return n == result.length ? result : Arrays.copyOf(result, n);
+        }
+
+        private int slot(long key, boolean create) {
+            int mask = keys.length - 1;
+            int i = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (keys[i] != -1) {
+                if (keys[i] == key) return i;
+                i = (i + 1) & mask;
+            }
+            if (!create) return -1;
+            if (count * 2 >= keys.length) {
+                grow();
+                return slot(key, true);
+            }
+            keys[i] = key;
+            count++;
+            return i;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[][] oldPostings = postings;
+            int[] oldSizes = sizes;
+            keys = newKeys(oldKeys.length * 2);
+            postings = new int[keys.length][];
+            sizes = new int[keys.length];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == -1) continue;
+                int slot = slot(oldKeys[i], true);
+                postings[slot] = oldPostings[i];
+                sizes[slot] = oldSizes[i];
+            }
+        }
+
+        // int count, then count x (long key, int n, n x int id)
+        int byteSize() {
+            int bytes = 4;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != -1) bytes += 8 + 4 + 4 * sizes[i];
+            }
+            return bytes;
+        }
+
+        void writeTo(ByteBuffer out) {
+            out.putInt(count);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == -1) continue;
+                out.putLong(keys[i]).putInt(sizes[i]);
+                out.asIntBuffer().put(postings[i], 0, sizes[i]);
+                out.position(out.position() + 4 * sizes[i]);
+            }
+        }
+
+        void readFrom(ByteBuffer in) {
+            int n = in.getInt();
+            // Sized up front so the table stays at most half full without growing
+            int capacity = Math.max(256, Integer.highestOneBit(Math.max(n, 1) * 2) * 2);
+            keys = newKeys(capacity);
+            postings = new int[capacity][];
+            sizes = new int[capacity];
+            count = 0;
+            for (int k = 0; k < n; k++) {
+                long key = in.getLong();
+                int size = in.getInt();
+                int[] list = new int[size];
+                in.asIntBuffer().get(list);
+                in.position(in.position() + 4 * size);
+                int slot = slot(key, true);
+                postings[slot] = list;
+                sizes[slot] = size;
+            }
+        }
+
+        long estimateBytes() {
+            long bytes = 16L + 8L * keys.length + 16L + 4L * postings.length + 16L + 4L * sizes.length;
+            for (int[] list : postings) {
+                if (list != null) bytes += 16L + 4L * list.length;
+            }
+            return bytes;
+        }
+
+        private static long[] newKeys(int capacity) {
+            long[] k = new long[capacity];
+            Arrays.fill(k, -1);
+            return k;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ro.fintechpro.core.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe LRU bounded by the total weight of its values (usually estimated bytes),
+ * with an optional time-to-live per entry.
+ */
+public class WeightedLruCache<K, V> {
+
+    private record Entry<V>(V value, long weight, long expiresAt) {}
+
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final ToLongFunction<V> weigher;
+    private long maxWeight;
+    private long ttlMillis;
+    private long weight;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param ttlMillis 0 keeps entries until they are evicted by weight.
+     */
+    public WeightedLruCache(long maxWeight, long ttlMillis, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> e = entries.get(key);
+        if (e == null || isExpired(e)) {
+            if (e != null) drop(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.value();
+    }
+
+    /**
+     * Stores the value unless it alone is heavier than the whole cache.
+     * @return true if it was stored.
+     */
+    public synchronized boolean put(K key, V value) {
+        long w = Math.max(1, weigher.applyAsLong(value));
+        if (w > maxWeight) return false;
+        drop(key);
+        entries.put(key, new Entry<>(value, w, ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE));
+        weight += w;
+        evict();
+        return true;
+    }
+
+    public synchronized void remove(K key) {
+        drop(key);
+    }
+
+    /**
+     * @return the number of entries removed.
+     */
+    public synchronized int removeIf(BiPredicate<K, V> filter) {
+        int removed = 0;
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (filter.test(e.getKey(), e.getValue().value())) {
+                weight -= e.getValue().weight();
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized boolean isEmpty() { return entries.isEmpty(); }
+
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized long getWeight() { return weight; }
+
+    public synchronized long getMaxWeight() { return maxWeight; }
+
+    public synchronized void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+        evict();
+    }
+
+    public synchronized long getTtlMillis() { return ttlMillis; }
+
+    /**
+     * Applies to entries stored from now on.
+     */
+    public synchronized void setTtlMillis(long ttlMillis) { this.ttlMillis = ttlMillis; }
+
+    public synchronized long getHits() { return hits; }
+
+    public synchronized long getMisses() { return misses; }
+
+    private void drop(K key) {
+        Entry<V> old = entries.remove(key);
+        if (old != null) weight -= old.weight();
+    }
+
+    private void evict() {
+        if (weight <= maxWeight) return;
+        // Expired entries first, then least recently used
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(e -> {
+            if (e.expiresAt() > now) return false;
+            weight -= e.weight();
+            return true;
+        });
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            weight -= it.next().weight();
+            it.remove();
+        }
+    }
+
+    private static boolean isExpired(Entry<?> e) {
+        return e.expiresAt() <= System.currentTimeMillis();
+    }
+}
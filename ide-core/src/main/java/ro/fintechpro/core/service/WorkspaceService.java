@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -19,7 +20,10 @@ public class WorkspaceService {
     private static final String WORKSPACE_DIR = ".pgdev_workspace";
     private static final String STATE_FILE = "workspace.json";
     private static final String METADATA_PREFIX = "metadata_";
+    private static final String SEARCH_INDEX_PREFIX = "search_";
+    private static final String RESULTS_DIR = "results";
     private final Gson gson = new Gson();
+    private final Object metadataWriteLock = new Object();
 
     public record ConsoleState(String id, String name, String connectionName, String content) {}
 
@@ -28,6 +32,13 @@ public class WorkspaceService {
         new File(WORKSPACE_DIR).mkdirs();
     }
 
+    /**
+     * Scratch directory for result sets spilled to disk.
+     */
+    public Path getResultsDirectory() {
+        return Path.of(WORKSPACE_DIR, RESULTS_DIR);
+    }
+
     public void saveState(List<ConsoleState> consoles) {
         try (FileWriter writer = new FileWriter(new File(WORKSPACE_DIR, STATE_FILE))) {
             gson.toJson(consoles, writer);
@@ -74,19 +85,28 @@ public class WorkspaceService {
         return new ConsoleState(id, "console.sql", defaultConnection, "");
     }
 
+    /**
+     * Startup, the manual refresh and change notifications can all save at once; one writes at a time.
+     */
     public void saveMetadata(DatabaseCache metadata) {
-        // Sanitize connection name for filename
-        String filename = METADATA_PREFIX + metadata.connectionName().replaceAll("[^a-zA-Z0-9.-]", "_") + ".json";
-        try (FileWriter writer = new FileWriter(new File(WORKSPACE_DIR, filename))) {
-            gson.toJson(metadata, writer);
-        } catch (IOException e) {
-            e.printStackTrace();
+        synchronized (metadataWriteLock) {
+            try {
+                MetadataSnapshot.write(metadata, metadataFile(metadata.connectionName(), ".bin"));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
         }
     }
 
+    /**
+     * Loads the binary snapshot (read in one go, schemas decoded on first use), falling back to
+     * the JSON file written by older versions.
+     */
     public DatabaseCache loadMetadata(String connectionName) {
-        String filename = METADATA_PREFIX + connectionName.replaceAll("[^a-zA-Z0-9.-]", "_") + ".json";
-        File file = new File(WORKSPACE_DIR, filename);
+        DatabaseCache snapshot = MetadataSnapshot.read(metadataFile(connectionName, ".bin"));
+        if (snapshot != null) return snapshot;
+
+        File file = metadataFile(connectionName, ".json").toFile();
         if (!file.exists()) return null;
 
         try (FileReader reader = new FileReader(file)) {
@@ -96,4 +116,52 @@ public class WorkspaceService {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Saves the profile's search index, if it changed since it was loaded or last saved.
+     */
+    public void saveSearchIndex(LocalIndexService index, String connectionName) {
+        try {
+            index.save(searchIndexFile(connectionName));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Opens the profile's saved search index.
+     * @return the number of schemas loaded (0 if there is none yet).
+     */
+    public int loadSearchIndex(LocalIndexService index, String connectionName) {
+        return index.load(searchIndexFile(connectionName));
+    }
+
+    /**
+     * Where the profile's search index is saved (the file may not exist yet).
+     */
+    public Path getSearchIndexFile(String connectionName) {
+        return searchIndexFile(connectionName);
+    }
+
+    /**
+     * Writes the metadata as JSON, for inspection or use outside the IDE.
+     */
+    public void exportMetadataJson(DatabaseCache metadata, Path target) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(target)) {
+            gson.toJson(metadata, writer);
+        }
+    }
+
+    private Path metadataFile(String connectionName, String extension) {
+        // Sanitize connection name for filename
+        return Path.of(WORKSPACE_DIR, METADATA_PREFIX + sanitize(connectionName) + extension);
+    }
+
+    private Path searchIndexFile(String connectionName) {
+        return Path.of(WORKSPACE_DIR, SEARCH_INDEX_PREFIX + sanitize(connectionName) + ".idx");
+    }
+
+    private static String sanitize(String connectionName) {
+        return connectionName.replaceAll("[^a-zA-Z0-9.-]", "_");
+    }
+}
@@ -0,0 +1,83 @@
+package ro.fintechpro.core.spi;
+
+import javafx.scene.control.Tab;
+import javafx.scene.control.TreeItem;
+import ro.fintechpro.core.model.DatabaseCache;
+import ro.fintechpro.core.model.SidebarItem;
+import ro.fintechpro.core.service.LocalIndexService.SearchResult;
+import ro.fintechpro.core.service.MetadataService;
+import ro.fintechpro.core.service.QueryExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Second version of the explorer plugin SPI. Plugins get the whole metadata snapshot and a set of
+ * schemas at once, so they can do bulk work, and return futures; the host runs them on a background
+ * executor, all plugins in parallel, and never on the FX thread.
+ */
+public interface AsyncSidebarPlugin {
+
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * The plugin's folder node for each of the schemas; schemas where it has nothing are left out.
+     * @param snapshot the model the schemas come from (never null)
+     */
+    CompletableFuture<Map<String, TreeItem<SidebarItem>>> createNodes(DatabaseCache snapshot, Collection<String> schemas,
+                                                                     MetadataService metaService, Executor executor);
+
+    CompletableFuture<List<SearchResult>> getIndexItems(DatabaseCache snapshot, Collection<String> schemas,
+                                                        MetadataService metaService, Executor executor);
+
+    default Tab createTab(SidebarItem item, MetadataService metaService, QueryExecutor queryExecutor) {
+        return null;
+    }
+
+    /**
+     * Runs a v1 plugin through this SPI, one schema after the other on the executor.
+     */
+    static AsyncSidebarPlugin adapt(SidebarPlugin plugin) {
+        return new AsyncSidebarPlugin() {
+            @Override
+            public String getName() {
+                return plugin.getClass().getSimpleName();
+            }
+
+            @Override
+            public CompletableFuture<Map<String, TreeItem<SidebarItem>>> createNodes(
+                    DatabaseCache snapshot, Collection<String> schemas, MetadataService metaService, Executor executor) {
+                return CompletableFuture.supplyAsync(() -> {
+                    Map<String, TreeItem<SidebarItem>> nodes = new LinkedHashMap<>();
+                    for (String schema : schemas) {
+                        TreeItem<SidebarItem> node = plugin.createNode(schema, metaService);
+                        if (node != null) nodes.put(schema, node);
+                    }
+                    return nodes;
+                }, executor);
+            }
+
+            @Override
+            public CompletableFuture<List<SearchResult>> getIndexItems(
+                    DatabaseCache snapshot, Collection<String> schemas, MetadataService metaService, Executor executor) {
+                return CompletableFuture.supplyAsync(() -> {
+                    List<SearchResult> items = new ArrayList<>();
+                    for (String schema : schemas) items.addAll(plugin.getIndexItems(schema, metaService));
+                    return items;
+                }, executor);
+            }
+
+            @Override
+            public Tab createTab(SidebarItem item, MetadataService metaService, QueryExecutor queryExecutor) {
+                return plugin.createTab(item, metaService, queryExecutor);
+            }
+        };
+    }
+}
@@ -7,54 +7,88 @@ import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import org.kordamp.ikonli.feather.Feather;
 import org.kordamp.ikonli.javafx.FontIcon;
 import ro.fintechpro.core.db.DataSourceManager;
 import ro.fintechpro.core.model.DatabaseCache;
 import ro.fintechpro.core.model.SidebarItem;
+import ro.fintechpro.core.result.ColumnarResult;
+import ro.fintechpro.core.service.ExecutionHandle;
+import ro.fintechpro.core.service.GlobalSearchService;
 import ro.fintechpro.core.service.LocalIndexService;
+import ro.fintechpro.core.service.MetadataChangeListener;
 import ro.fintechpro.core.service.MetadataService;
 import ro.fintechpro.core.service.QueryExecutor;
+import ro.fintechpro.core.service.SourceIndexService;
+import ro.fintechpro.core.service.StageTimings;
 import ro.fintechpro.core.service.WorkspaceService;
-import ro.fintechpro.core.spi.SidebarPlugin;
+import ro.fintechpro.core.spi.SidebarPluginHost;
 import ro.fintechpro.ui.components.CustomTitleBar;
 import ro.fintechpro.ui.ide.DockLayout;
-import ro.fintechpro.ui.ide.ResultTableBuilder;
+import ro.fintechpro.ui.ide.GlobalSearchView;
+import ro.fintechpro.ui.ide.ResultGrid;
+import ro.fintechpro.ui.ide.ResultTabPane;
 import ro.fintechpro.ui.ide.SidebarView;
 import ro.fintechpro.ui.ide.SqlConsoleTab;
+import ro.fintechpro.ui.ide.UsagesView;
 import ro.fintechpro.ui.plugins.FunctionPlugin;
 import ro.fintechpro.ui.plugins.ProcedurePlugin;
 import ro.fintechpro.ui.plugins.TablePlugin;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 
 public class MainIdeView {
 
+    // Parallel catalog reads while indexing; kept below the connection pool size
+    private static final int INDEX_WORKERS = 4;
+
     // Services
     private final DataSourceManager dbManager = DataSourceManager.getInstance();
     private final MetadataService metaService = new MetadataService(dbManager);
     private final QueryExecutor queryExecutor = new QueryExecutor();
     private final LocalIndexService indexService = new LocalIndexService();
+    private final SourceIndexService sourceIndex = new SourceIndexService(dbManager);
     private final WorkspaceService workspaceService = new WorkspaceService();
+    private final GlobalSearchService globalSearch = new GlobalSearchService(workspaceService);
+    private final MetadataChangeListener metaListener = new MetadataChangeListener(dbManager, metaService);
 
     // UI Components
-    private final List<SidebarPlugin> plugins = List.of(
+    private final SidebarPluginHost plugins = new SidebarPluginHost(List.of(
             new TablePlugin(),
             new FunctionPlugin(),
             new ProcedurePlugin()
-    );
+    ));
     private final SidebarView sidebar = new SidebarView(plugins);
     private TabPane editorTabPane;
-    private final TableView<List<Object>> resultsTable = new TableView<>();
+    private final ResultTabPane resultTabs = new ResultTabPane();
+    private final UsagesView usagesView = new UsagesView();
+    private final GlobalSearchView globalSearchView = new GlobalSearchView(globalSearch);
     private final TextArea messageConsole = new TextArea();
     private final ProgressBar progressBar = new ProgressBar();
+    private int runningTasks; // Shown by progressBar; FX thread only
     private final Label statusLabel = new Label("Ready");
     private DockLayout dockLayout;
 
     private boolean isPreloaded = false;
+    private DatabaseCache diskCache;
+    private List<WorkspaceService.ConsoleState> restoredConsoles;
+    private final StageTimings startupTimings = new StageTimings();
+    private final ExecutorService startupExecutor = Executors.newVirtualThreadPerTaskExecutor();
     private String connectionProfileName = "default";
 
     public void setConnectionProfileName(String name) {
@@ -62,52 +96,178 @@ public class MainIdeView {
     }
 
     /**
-     * BLOCKING method called by the Splash Screen.
+     * Called by the Splash Screen. Only reads what is on disk (the metadata snapshot and the
+     * workspace) so the IDE can render at once; connecting, introspecting and indexing run
+     * in the background afterwards (see {@link #startBackgroundRefresh()}).
      */
     public void preload(Consumer<String> statusUpdater) {
         try {
-            statusUpdater.accept("Connecting to database...");
-            if (!dbManager.testConnection()) throw new RuntimeException("Connection lost");
-
-            // 1. SMART INTROSPECTION
-            statusUpdater.accept("Checking metadata cache...");
-            DatabaseCache diskCache = workspaceService.loadMetadata(connectionProfileName);
-
-            statusUpdater.accept("Introspecting database structure...");
-            DatabaseCache freshCache = metaService.introspect(connectionProfileName, diskCache);
-
-            workspaceService.saveMetadata(freshCache);
+            statusUpdater.accept("Loading cached metadata and workspace...");
+            CompletableFuture<DatabaseCache> snapshot = CompletableFuture.supplyAsync(() -> timed("load-snapshot",
+                    () -> workspaceService.loadMetadata(connectionProfileName)), startupExecutor);
+            CompletableFuture<List<WorkspaceService.ConsoleState>> workspace = CompletableFuture.supplyAsync(
+                    () -> timed("restore-workspace", workspaceService::loadState), startupExecutor);
+            CompletableFuture<Integer> searchIndex = CompletableFuture.supplyAsync(() -> timed("load-index",
+                    () -> workspaceService.loadSearchIndex(indexService, connectionProfileName)), startupExecutor);
+
+            diskCache = snapshot.join();
+            restoredConsoles = workspace.join();
+            searchIndex.join();
+            if (diskCache != null) {
+                // Stale, but good enough to browse while the background refresh runs
+                metaService.setActiveCache(diskCache);
+            }
 
-            // 2. INDEXING
-            statusUpdater.accept("Indexing search...");
-            indexService.clearIndex();
+            isPreloaded = true;
+            statusUpdater.accept("Ready!");
 
-            List<LocalIndexService.SearchResult> batch = new ArrayList<>();
-            List<String> schemas = metaService.getSchemas();
+        } catch (Exception e) {
+            e.printStackTrace();
+            statusUpdater.accept("Error: " + e.getMessage());
+        }
+    }
 
-            int count = 0;
-            for (String schema : schemas) {
-                statusUpdater.accept("Indexing schema: " + schema);
-                for (SidebarPlugin p : plugins) {
-                    batch.addAll(p.getIndexItems(schema, metaService));
+    /**
+     * Stale-while-revalidate: the sidebar already shows the snapshot. In parallel, the search index is
+     * built from it and the server is introspected (only schemas whose fingerprint moved are reloaded);
+     * then the snapshot is saved and the changed schemas are re-indexed and patched into the sidebar.
+     */
+    private void startBackgroundRefresh() {
+        taskStarted();
+        DatabaseCache stale = diskCache;
+
+        CompletableFuture<Void> indexStale = stale == null
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.runAsync(() -> timedRun("index-snapshot", this::rebuildIndex), startupExecutor);
+
+        CompletableFuture<Void> connected = CompletableFuture.runAsync(() -> timedRun("connect", () -> {
+            if (!dbManager.testConnection()) throw new IllegalStateException("Connection lost");
+        }), startupExecutor);
+
+        // Introspect, save and patch on one thread under the refresh lock, so a DDL notification or a manual
+        // refresh cannot apply its model in between (and be overwritten by this older one)
+        CompletableFuture<DatabaseCache> refreshed = connected.thenApplyAsync(ignored -> {
+            metaService.getRefreshLock().lock();
+            try {
+                DatabaseCache fresh = timed("introspect", () -> metaService.introspect(connectionProfileName, stale,
+                        status -> Platform.runLater(() -> statusLabel.setText(status))));
+
+                CompletableFuture<Void> saved = fresh == stale
+                        ? CompletableFuture.completedFuture(null)
+                        : CompletableFuture.runAsync(() -> timedRun("save-snapshot", () -> workspaceService.saveMetadata(fresh)), startupExecutor);
+                indexStale.join();
+                if (stale == null) {
+                    timedRun("index", this::rebuildIndex);
+                    sidebar.populate(metaService);
+                } else if (fresh != stale) {
+                    Set<String> changed = MetadataService.changedSchemas(stale, fresh);
+                    timedRun("reindex-changed", () -> reindexSchemas(changed, fresh));
+                    sidebar.patchSchemas(changed, metaService);
                 }
-                count++;
+                saved.join();
+                return fresh;
+            } finally {
+                metaService.getRefreshLock().unlock();
             }
+        }, startupExecutor);
 
-            statusUpdater.accept("Finalizing index (" + batch.size() + " objects)...");
-            indexService.indexItems(batch);
+        // Routine and view bodies are only needed for "Find Usages": index them after the model, off the critical path
+        refreshed.thenRunAsync(() -> timedRun("index-sources", this::refreshSources), startupExecutor);
 
-            // 3. Load Workspace
-            statusUpdater.accept("Restoring workspace...");
-            workspaceService.loadState();
+        refreshed.whenComplete((ignored, error) -> {
+            if (error != null) error.printStackTrace();
+            startupTimings.mark("fresh");
+            String report = startupTimings.report();
+            long firstInteraction = startupTimings.endOf("first-interaction");
+            Platform.runLater(() -> {
+                taskEnded();
+                messageConsole.appendText("Startup stages (ms since launch):\n" + report);
+                messageConsole.appendText("Explorer plugins:\n" + plugins.report());
+                statusLabel.setText(error != null
+                        ? "Refresh Failed: " + rootCause(error).getMessage()
+                        : "Ready in " + firstInteraction + " ms, metadata fresh after "
+                        + startupTimings.endOf("fresh") + " ms.");
+            });
+        });
+    }
 
-            isPreloaded = true;
-            statusUpdater.accept("Ready!");
+    private <T> T timed(String stage, Callable<T> work) {
+        try {
+            return startupTimings.time(stage, work);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
 
+    private void timedRun(String stage, StageTimings.Work work) {
+        try {
+            startupTimings.run(stage, work);
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
-            e.printStackTrace();
-            statusUpdater.accept("Error: " + e.getMessage());
+            throw new CompletionException(e);
+        }
+    }
+
+    private static Throwable rootCause(Throwable t) {
+        while (t.getCause() != null && (t instanceof CompletionException || t instanceof ExecutionException)) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    /**
+     * Brings the index in line with the active model: only schemas whose fingerprint differs from the
+     * one their (saved) segment was built from are indexed again.
+     */
+    private void rebuildIndex() throws Exception {
+        DatabaseCache cache = metaService.getActiveCache();
+        Map<String, String> fingerprints = fingerprintsOf(cache, metaService.getSchemas());
+        indexService.retainSchemas(fingerprints.keySet());
+        indexSchemas(new ArrayList<>(indexService.staleSchemas(fingerprints)), fingerprints);
+        workspaceService.saveSearchIndex(indexService, connectionProfileName);
+    }
+
+    private void reindexSchemas(Set<String> schemas, DatabaseCache cache) {
+        List<String> present = new ArrayList<>();
+        for (String schema : schemas) {
+            if (cache.schemas().containsKey(schema)) present.add(schema);
+            else indexService.removeSchema(schema);
+        }
+        indexSchemas(present, fingerprintsOf(cache, present));
+        workspaceService.saveSearchIndex(indexService, connectionProfileName);
+    }
+
+    private static Map<String, String> fingerprintsOf(DatabaseCache cache, List<String> schemas) {
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        for (String schema : schemas) {
+            var sc = cache != null ? cache.schemas().get(schema) : null;
+            fingerprints.put(schema, sc != null ? sc.fingerprint() : null); // Unknown: always re-indexed
         }
+        return fingerprints;
+    }
+
+    /**
+     * Schemas are dealt round-robin to a few workers; each reads its schemas' catalogs and builds their
+     * index segments, which replace the old ones as soon as they are ready.
+     */
+    private void indexSchemas(List<String> schemas, Map<String, String> fingerprints) {
+        if (schemas.isEmpty()) return;
+        int workers = Math.min(INDEX_WORKERS, schemas.size());
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < workers; i++) chunks.add(new ArrayList<>());
+        for (int i = 0; i < schemas.size(); i++) chunks.get(i % workers).add(schemas.get(i));
+
+        List<CompletableFuture<Void>> work = new ArrayList<>();
+        for (List<String> chunk : chunks) {
+            Map<String, String> chunkFingerprints = new LinkedHashMap<>();
+            for (String schema : chunk) chunkFingerprints.put(schema, fingerprints.get(schema));
+            work.add(plugins.indexItems(chunk, metaService)
+                    .thenAccept(items -> indexService.replaceSchemas(chunkFingerprints, items)));
+        }
+        CompletableFuture.allOf(work.toArray(CompletableFuture[]::new)).join();
     }
 
     public Parent getView(Stage stage) {
@@ -115,7 +275,9 @@ public class MainIdeView {
         editorTabPane = new TabPane();
         editorTabPane.getStyleClass().add(Styles.DENSE);
 
-        List<WorkspaceService.ConsoleState> savedStates = workspaceService.loadState();
+        List<WorkspaceService.ConsoleState> savedStates = restoredConsoles != null
+                ? restoredConsoles
+                : workspaceService.loadState();
         if (savedStates.isEmpty()) {
             addNewConsole();
         } else {
@@ -133,7 +295,7 @@ public class MainIdeView {
         }
 
         dockLayout.dock(sidebar, "Explorer", DockLayout.Location.LEFT);
-        dockLayout.dock(resultsTable, "Query Results", DockLayout.Location.BOTTOM);
+        dockLayout.dock(resultTabs, "Query Results", DockLayout.Location.BOTTOM);
         dockLayout.dock(messageConsole, "Console", DockLayout.Location.BOTTOM);
 
         // 3. MENU & ROOT
@@ -154,13 +316,20 @@ public class MainIdeView {
         // Events
         sidebar.setOnRefresh(this::runIntrospection);
         sidebar.setOnItemOpen(this::openObjectTab); // Hook up tab opening
+        sidebar.setOnFindUsages(this::findUsages);
+        usagesView.setOnOpen(this::openObjectTab);
+        globalSearchView.setOnOpen(this::openGlobalResult);
+        // The open profile is searched through its live index, the others through their saved ones
+        globalSearch.setLiveIndex(connectionProfileName, indexService);
 
-        // 4. INITIAL POPULATION
+        // 4. INITIAL POPULATION (from the snapshot; refreshed in the background)
         if (isPreloaded) {
+            sidebar.setupSearch(indexService);
+            if (diskCache != null) sidebar.populate(metaService);
             Platform.runLater(() -> {
-                sidebar.populate(metaService);
-                sidebar.setupSearch(indexService);
-                statusLabel.setText("Ready (Preloaded).");
+                startupTimings.mark("first-interaction");
+                statusLabel.setText(diskCache != null ? "Ready (cached), refreshing..." : "Loading metadata...");
+                startBackgroundRefresh();
             });
         } else {
             runIntrospection(null);
@@ -170,7 +339,7 @@ public class MainIdeView {
     }
 
     private void addNewConsole() {
-        var state = workspaceService.createNewConsole("postgres");
+        var state = workspaceService.createNewConsole(dbManager.getActiveProfileName());
         addConsoleTab(state);
     }
 
@@ -214,19 +383,47 @@ public class MainIdeView {
         newConsole.setOnAction(e -> addNewConsole());
         MenuItem saveItem = new MenuItem("Save Workspace", new FontIcon(Feather.SAVE));
         saveItem.setOnAction(e -> saveWorkspace());
-        fileMenu.getItems().addAll(newConsole, saveItem);
+        MenuItem exportMetadata = new MenuItem("Export Metadata (JSON)...", new FontIcon(Feather.DOWNLOAD));
+        exportMetadata.setOnAction(e -> exportMetadataJson(menuBar));
+        fileMenu.getItems().addAll(newConsole, saveItem, new SeparatorMenuItem(), exportMetadata);
 
         Menu viewMenu = new Menu("View");
         MenuItem openExplorer = new MenuItem("Database Explorer");
         openExplorer.setOnAction(e -> dockLayout.dock(sidebar, "Explorer", DockLayout.Location.LEFT));
         MenuItem openResults = new MenuItem("Query Results");
-        openResults.setOnAction(e -> dockLayout.dock(resultsTable, "Query Results", DockLayout.Location.BOTTOM));
-        viewMenu.getItems().addAll(openExplorer, openResults);
-
-        menuBar.getMenus().addAll(fileMenu, viewMenu);
+        openResults.setOnAction(e -> dockLayout.dock(resultTabs, "Query Results", DockLayout.Location.BOTTOM));
+        MenuItem searchLatency = new MenuItem("Search Latency");
+        searchLatency.setOnAction(e -> {
+            dockLayout.dock(messageConsole, "Console", DockLayout.Location.BOTTOM);
+            messageConsole.appendText("Explorer search: " + sidebar.getSearchStats() + "\n");
+            messageConsole.appendText("Global search: " + globalSearchView.getSearchStats() + "\n");
+        });
+        MenuItem openGlobalSearch = new MenuItem("Search All Connections", new FontIcon(Feather.SEARCH));
+        openGlobalSearch.setOnAction(e -> openGlobalSearch());
+        MenuItem openUsages = new MenuItem("Usages");
+        openUsages.setOnAction(e -> dockLayout.dock(usagesView, "Usages", DockLayout.Location.BOTTOM));
+        viewMenu.getItems().addAll(openExplorer, openResults, openUsages, openGlobalSearch, new SeparatorMenuItem(), searchLatency);
+
+        Menu dbMenu = new Menu("Database");
+        CheckMenuItem liveMetadata = new CheckMenuItem("Live Metadata Updates");
+        liveMetadata.setOnAction(e -> toggleLiveMetadata(liveMetadata));
+        dbMenu.getItems().add(liveMetadata);
+
+        menuBar.getMenus().addAll(fileMenu, viewMenu, dbMenu);
         return menuBar;
     }
 
+    // The progress bar stays up while any query or metadata refresh runs. FX thread only
+    private void taskStarted() {
+        runningTasks++;
+        progressBar.setVisible(true);
+    }
+
+    private void taskEnded() {
+        runningTasks = Math.max(0, runningTasks - 1);
+        progressBar.setVisible(runningTasks > 0);
+    }
+
     private HBox createStatusBar() {
         HBox bar = new HBox(10, statusLabel, progressBar);
         bar.setPadding(new Insets(3));
@@ -236,73 +433,277 @@ public class MainIdeView {
         return bar;
     }
 
-    private void executeQuery(String sql) {
-        if (sql == null || sql.trim().isEmpty()) return;
+    private ExecutionHandle executeQuery(SqlConsoleTab console, String sql) {
+        if (sql == null || sql.trim().isEmpty()) return null;
         statusLabel.setText("Executing...");
-        progressBar.setVisible(true);
-
-        new Thread(() -> {
-            try {
-                var result = queryExecutor.execute(sql);
+        taskStarted();
+
+        // Each console runs against its own selected profile, concurrently with the others
+        var options = new QueryExecutor.ExecutionOptions(console.getConnectionName(),
+                queryExecutor.getFetchSize(), console.getStatementTimeoutSeconds(), console.getSession(),
+                console.getParameterValues(), console.isResultCacheEnabled());
+
+        // Every result set gets its own tab; rows are shown as soon as the first fetch arrives
+        String owner = console.getConsoleId();
+        resultTabs.clearOwner(owner);
+        ExecutionHandle handle = queryExecutor.submit(sql, options, new QueryExecutor.StreamListener() {
+            private int resultCount;
+            private ResultGrid grid;
+
+            @Override
+            public void onStart(ColumnarResult result) {
+                // Not attached to a scene yet, so it may be built on this thread
+                ResultGrid target = new ResultGrid();
+                grid = target;
+                String title = console.getText() + " #" + (++resultCount);
                 Platform.runLater(() -> {
-                    dockLayout.dock(result.isResultSet() ? resultsTable : messageConsole,
-                            result.isResultSet() ? "Query Results" : "Console",
-                            DockLayout.Location.BOTTOM);
+                    dockLayout.dock(resultTabs, "Query Results", DockLayout.Location.BOTTOM);
+                    resultTabs.addResult(owner, title, target);
+                    target.bind(result);
+                });
+            }
 
-                    if (result.isResultSet()) ResultTableBuilder.populate(resultsTable, result);
-                    else messageConsole.setText(result.message());
+            @Override
+            public boolean onRows(ColumnarResult result, int fromRow, int toRow) {
+                grid.rowsAvailable();
+                Platform.runLater(() -> statusLabel.setText(console.getText() + ": fetching... " + toRow + " rows"));
+                return true;
+            }
+        });
 
-                    statusLabel.setText("Done.");
-                    progressBar.setVisible(false);
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> {
-                    dockLayout.dock(messageConsole, "Console", DockLayout.Location.BOTTOM);
-                    messageConsole.setText("Error: " + e.getMessage());
-                    statusLabel.setText("Failed.");
-                    progressBar.setVisible(false);
-                });
+        handle.getCompletion().whenComplete((result, error) -> Platform.runLater(() -> {
+            taskEnded(); // Other consoles may still be running
+            if (error != null) {
+                dockLayout.dock(messageConsole, "Console", DockLayout.Location.BOTTOM);
+                messageConsole.setText("Error: " + error.getMessage());
+                statusLabel.setText("Failed.");
+                return;
             }
-        }).start();
+            if (!result.isResultSet()) {
+                dockLayout.dock(messageConsole, "Console", DockLayout.Location.BOTTOM);
+            }
+            messageConsole.setText(result.message());
+            statusLabel.setText(handle.isCacheHit()
+                    ? console.getText() + ": served from result cache in " + handle.getElapsedMillis() + " ms."
+                    : console.getText() + ": done in " + handle.getElapsedMillis() + " ms.");
+        }));
+        return handle;
     }
 
     private void runIntrospection(Runnable onComplete) {
-        if (onComplete == null) {
-            progressBar.setVisible(true);
+        boolean showProgress = onComplete == null;
+        if (showProgress) {
+            taskStarted();
             statusLabel.setText("Refeshing Metadata...");
         }
 
         new Thread(() -> {
+            // Held until the model is saved and indexed, so a concurrent refresh cannot apply an older one after it
+            metaService.getRefreshLock().lock();
             try {
-                DatabaseCache cached = workspaceService.loadMetadata(connectionProfileName);
-                DatabaseCache fresh = metaService.introspect(connectionProfileName, cached);
+                // Once loaded, the in-memory model is what is on disk and what the UI shows
+                boolean loaded = metaService.getActiveCache() != null;
+                DatabaseCache cached = loaded
+                        ? metaService.getActiveCache()
+                        : workspaceService.loadMetadata(connectionProfileName);
+                DatabaseCache fresh = metaService.introspect(connectionProfileName, cached,
+                        status -> Platform.runLater(() -> statusLabel.setText(status)));
+                if (loaded && fresh == cached) {
+                    // Fingerprints matched: nothing to save, re-index or redraw
+                    Platform.runLater(() -> {
+                        statusLabel.setText("Metadata unchanged.");
+                        if (showProgress) taskEnded();
+                        if (onComplete != null) onComplete.run();
+                    });
+                    return;
+                }
                 workspaceService.saveMetadata(fresh);
 
-                indexService.clearIndex();
-                List<LocalIndexService.SearchResult> batch = new ArrayList<>();
-                for (String s : metaService.getSchemas()) {
-                    for (SidebarPlugin p : plugins) batch.addAll(p.getIndexItems(s, metaService));
-                }
-                indexService.indexItems(batch);
+                rebuildIndex();
+                refreshSources();
 
                 Platform.runLater(() -> {
                     sidebar.populate(metaService);
-                    sidebar.setupSearch(indexService);
+                    if (!isPreloaded) sidebar.setupSearch(indexService); // Already wired up by getView
                     statusLabel.setText("Ready.");
-                    progressBar.setVisible(false);
+                    if (showProgress) taskEnded();
                     if (onComplete != null) onComplete.run();
                 });
             } catch (Exception e) {
                 e.printStackTrace();
                 Platform.runLater(() -> {
                     statusLabel.setText("Refresh Failed.");
+                    if (showProgress) taskEnded();
                     if (onComplete != null) onComplete.run();
                 });
+            } finally {
+                metaService.getRefreshLock().unlock();
             }
         }).start();
     }
 
+    private void exportMetadataJson(MenuBar owner) {
+        DatabaseCache cache = metaService.getActiveCache();
+        if (cache == null) {
+            statusLabel.setText("No metadata loaded yet.");
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Metadata");
+        chooser.setInitialFileName("metadata_" + cache.connectionName() + ".json");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("JSON", "*.json"));
+        File target = chooser.showSaveDialog(owner.getScene().getWindow());
+        if (target == null) return;
+
+        new Thread(() -> {
+            try {
+                workspaceService.exportMetadataJson(cache, target.toPath());
+                Platform.runLater(() -> statusLabel.setText("Metadata exported to " + target.getName()));
+            } catch (Exception e) {
+                e.printStackTrace();
+                Platform.runLater(() -> statusLabel.setText("Export failed: " + e.getMessage()));
+            }
+        }).start();
+    }
+
+    // --- Live metadata: DDL pushed by event triggers instead of manual refresh ---
+
+    private void toggleLiveMetadata(CheckMenuItem item) {
+        boolean enable = item.isSelected();
+        item.setDisable(true);
+        statusLabel.setText(enable ? "Installing DDL triggers..." : "Removing DDL triggers...");
+
+        new Thread(() -> {
+            try {
+                if (enable) {
+                    metaService.installChangeTrigger();
+                    metaListener.start(connectionProfileName, this::applyMetadataChange);
+                } else {
+                    metaListener.stop();
+                    metaService.uninstallChangeTrigger();
+                }
+                Platform.runLater(() -> statusLabel.setText(enable
+                        ? "Live metadata updates on." : "Live metadata updates off."));
+            } catch (Exception e) {
+                e.printStackTrace();
+                // Event triggers need a superuser; keep using the manual refresh
+                Platform.runLater(() -> {
+                    item.setSelected(metaListener.isRunning());
+                    statusLabel.setText("Live updates unavailable: " + e.getMessage());
+                });
+            } finally {
+                Platform.runLater(() -> item.setDisable(false));
+            }
+        }).start();
+    }
+
+    // Called on the listener thread with the model already refreshed
+    private void applyMetadataChange(MetadataChangeListener.Change change) {
+        workspaceService.saveMetadata(change.cache());
+
+        // Re-index only the schemas that changed
+        reindexSchemas(change.schemas(), change.cache());
+        refreshSources();
+
+        sidebar.patchSchemas(change.schemas(), metaService);
+        Platform.runLater(() -> statusLabel.setText("Metadata updated: "
+                + (change.schemas().isEmpty() ? "no structural changes" : String.join(", ", change.schemas()))
+                + " (" + change.commands().size() + " DDL)"));
+    }
+
+    // --- Find usages: views and routines referencing a table, view or column ---
+
+    /**
+     * Incremental: only routines and views whose row version moved since the last refresh are fetched again.
+     */
+    private void refreshSources() {
+        try {
+            SourceIndexService.RefreshStats stats = sourceIndex.refresh();
+            if (stats.fetched() > 0 || stats.removed() > 0) {
+                Platform.runLater(() -> messageConsole.appendText("Source index: " + stats.sources() + " sources ("
+                        + stats.fetched() + " fetched, " + stats.removed() + " removed), "
+                        + stats.edges() + " dependencies in " + stats.millis() + " ms\n"));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void findUsages(SidebarItem item) {
+        String column = SidebarItem.TYPE_COLUMN.equals(item.type()) ? item.child() : null;
+        String target = item.schema() + "." + item.name() + (column != null ? "." + column : "");
+
+        usagesView.showSearching(target);
+        dockLayout.dock(usagesView, "Usages", DockLayout.Location.BOTTOM);
+        Thread.ofVirtual().name("find-usages").start(() -> {
+            try {
+                if (!sourceIndex.isLoaded()) sourceIndex.refresh();
+                List<SourceIndexService.Usage> usages = sourceIndex.findUsages(item.schema(), item.name(), column);
+                Platform.runLater(() -> usagesView.show(target, usages));
+            } catch (Exception e) {
+                e.printStackTrace();
+                Platform.runLater(() -> statusLabel.setText("Find usages failed: " + e.getMessage()));
+            }
+        });
+    }
+
+    // --- Global search: the saved indexes of every connection profile ---
+
+    private void openGlobalSearch() {
+        // The open profile first, so it wins ties
+        List<String> profiles = new ArrayList<>(new TreeSet<>(dbManager.getProfiles().keySet()));
+        if (profiles.remove(connectionProfileName)) profiles.add(0, connectionProfileName);
+        globalSearchView.setProfiles(profiles);
+        dockLayout.dock(globalSearchView, "Search All", DockLayout.Location.LEFT);
+        globalSearchView.focusSearch();
+        // Open the indexes now, so the first search does not pay for reading them
+        Thread.ofVirtual().name("global-search-warmup").start(() -> globalSearch.warmUp(profiles));
+    }
+
+    /**
+     * Objects of the open profile open like explorer items; anything else opens a console bound to
+     * its profile, with a query for the object.
+     */
+    private void openGlobalResult(GlobalSearchService.GlobalResult hit) {
+        LocalIndexService.SearchResult res = hit.result();
+        if (hit.profile().equals(connectionProfileName)) {
+            // Columns, indexes and constraints open their table
+            openObjectTab(res.parent() != null
+                    ? new SidebarItem(res.parent(), SidebarItem.TYPE_TABLE, res.schema(), res.parent())
+                    : new SidebarItem(res.name(), res.type(), res.schema(), res.name()));
+            return;
+        }
+        var blank = workspaceService.createNewConsole(hit.profile());
+        addConsoleTab(new WorkspaceService.ConsoleState(blank.id(), res.name() + ".sql", hit.profile(), sqlFor(res)));
+    }
+
+    private static String sqlFor(LocalIndexService.SearchResult res) {
+        String relation = quoteIdent(res.schema()) + "." + quoteIdent(res.parent() != null ? res.parent() : res.name());
+        return switch (res.type()) {
+            case SidebarItem.TYPE_TABLE, SidebarItem.TYPE_VIEW -> "SELECT * FROM " + relation + " LIMIT 100;\n";
+            case SidebarItem.TYPE_COLUMN -> "SELECT " + quoteIdent(res.name()) + " FROM " + relation + " LIMIT 100;\n";
+            case SidebarItem.TYPE_INDEX -> "SELECT pg_get_indexdef(" + literal(quoteIdent(res.schema()) + "." + quoteIdent(res.name())) + "::regclass);\n";
+            case SidebarItem.TYPE_CONSTRAINT -> "SELECT pg_get_constraintdef(oid) FROM pg_constraint\nWHERE conname = "
+                    + literal(res.name()) + " AND conrelid = " + literal(relation) + "::regclass;\n";
+            case SidebarItem.TYPE_FUNCTION, SidebarItem.TYPE_PROCEDURE -> "SELECT pg_get_functiondef(p.oid)\nFROM pg_proc p JOIN pg_namespace n ON n.oid = p.pronamespace\nWHERE n.nspname = "
+                    + literal(res.schema()) + " AND p.proname = " + literal(res.name()) + ";\n";
+            default -> "-- " + res.schema() + "." + res.name() + " (" + res.type() + ")\n";
+        };
+    }
+
+    // Always quoted: a bare name may be a reserved word (a column called "order" or "user")
+    private static String quoteIdent(String name) {
+        return "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String literal(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
     private void openObjectTab(SidebarItem item) {
+        // Columns, indexes and constraints open their table
+        if (item.child() != null) item = new SidebarItem(item.name(), SidebarItem.TYPE_TABLE, item.schema(), item.name());
+
         // 1. Check if tab already exists
         String tabId = item.type() + ":" + item.schema() + "." + item.name();
         for (Tab t : editorTabPane.getTabs()) {
@@ -313,14 +714,11 @@ public class MainIdeView {
         }
 
         // 2. Ask plugins to create the tab
-        for (SidebarPlugin plugin : plugins) {
-            Tab tab = plugin.createTab(item, metaService, queryExecutor);
-            if (tab != null) {
-                tab.setUserData(tabId); // Tag it for uniqueness
-                editorTabPane.getTabs().add(tab);
-                editorTabPane.getSelectionModel().select(tab);
-                return;
-            }
+        Tab tab = plugins.createTab(item, metaService, queryExecutor);
+        if (tab != null) {
+            tab.setUserData(tabId); // Tag it for uniqueness
+            editorTabPane.getTabs().add(tab);
+            editorTabPane.getSelectionModel().select(tab);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package ro.fintechpro.ui.components;
+
+import javafx.scene.control.TreeItem;
+import ro.fintechpro.core.model.SidebarItem;
+
+/**
+ * Explorer tree item that refers to a shared icon instead of owning a graphic node.
+ */
+public class IconTreeItem extends TreeItem<SidebarItem> {
+
+    private final SidebarIcons.Spec icon;
+
+    public IconTreeItem(SidebarItem value, SidebarIcons.Spec icon) {
+        super(value);
+        this.icon = icon;
+    }
+
+    public SidebarIcons.Spec getIcon() {
+        return icon;
+    }
+}
@@ -0,0 +1,61 @@
+package ro.fintechpro.ui.components;
+
+import javafx.application.Platform;
+import javafx.scene.control.TreeItem;
+import ro.fintechpro.core.model.SidebarItem;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Folder whose children are built by a loader the first time it is expanded. The loader runs
+ * on a background thread; a "Loading..." placeholder is shown until it returns.
+ */
+public class LazyTreeItem extends IconTreeItem {
+
+    private final Callable<List<TreeItem<SidebarItem>>> loader;
+    private boolean loading;
+    private boolean loaded;
+
+    public LazyTreeItem(SidebarItem value, SidebarIcons.Spec icon, Callable<List<TreeItem<SidebarItem>>> loader) {
+        super(value, icon);
+        this.loader = loader;
+        expandedProperty().addListener((obs, wasExpanded, isExpanded) -> {
+            if (isExpanded) load();
+        });
+    }
+
+    // Shows the expand arrow before anything is loaded
+    @Override
+    public boolean isLeaf() {
+        return loaded && getChildren().isEmpty();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    private void load() {
+        if (loaded || loading) return;
+        loading = true;
+        getChildren().setAll(new IconTreeItem(
+                new SidebarItem("Loading...", "INFO", getValue().schema(), null), SidebarIcons.INFO));
+
+        Thread.ofVirtual().name("sidebar-load").start(() -> {
+            List<TreeItem<SidebarItem>> children;
+            try {
+                children = loader.call();
+            } catch (Exception e) {
+                e.printStackTrace();
+                children = List.of(new IconTreeItem(
+                        new SidebarItem("Failed: " + e.getMessage(), "INFO", getValue().schema(), null), SidebarIcons.INFO));
+            }
+            List<TreeItem<SidebarItem>> result = children;
+            Platform.runLater(() -> {
+                getChildren().setAll(result);
+                loading = false;
+                loaded = true;
+            });
+        });
+    }
+}
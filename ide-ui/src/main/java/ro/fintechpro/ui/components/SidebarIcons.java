@@ -0,0 +1,66 @@
+package ro.fintechpro.ui.components;
+
+import javafx.scene.paint.Color;
+import org.kordamp.ikonli.feather.Feather;
+import org.kordamp.ikonli.javafx.FontIcon;
+import ro.fintechpro.core.model.SidebarItem;
+
+/**
+ * Shared icon descriptions for the explorer tree. Tree items only reference one of these
+ * constants; the {@link FontIcon} nodes belong to the (few, recycled) tree cells.
+ */
+public final class SidebarIcons {
+
+    public record Spec(Feather icon, Color color) {
+        public FontIcon create() {
+            FontIcon fontIcon = new FontIcon(icon);
+            fontIcon.setIconColor(color);
+            return fontIcon;
+        }
+
+        public void applyTo(FontIcon fontIcon) {
+            fontIcon.setIconCode(icon);
+            fontIcon.setIconColor(color);
+        }
+    }
+
+    private static final Color BLUE = Color.web("#5263e3");
+    private static final Color PURPLE = Color.web("#C678DD");
+
+    public static final Spec DATABASE = new Spec(Feather.DATABASE, Color.web("#E06C75")); // Red/Pink
+    public static final Spec SCHEMA = new Spec(Feather.LAYERS, Color.web("#E5C07B")); // Gold
+    public static final Spec TABLES = new Spec(Feather.GRID, BLUE);
+    public static final Spec TABLE = new Spec(Feather.LAYOUT, BLUE);
+    public static final Spec VIEW = new Spec(Feather.EYE, BLUE);
+    public static final Spec COLUMN = new Spec(Feather.COLUMNS, Color.web("#98C379")); // Green
+    public static final Spec INDEX = new Spec(Feather.ZAP, Color.web("#56B6C2")); // Cyan
+    public static final Spec CONSTRAINT = new Spec(Feather.KEY, Color.web("#D19A66")); // Orange
+    public static final Spec FUNCTIONS = new Spec(Feather.BOX, PURPLE);
+    public static final Spec FUNCTION = new Spec(Feather.PLAY_CIRCLE, PURPLE);
+    public static final Spec PROCEDURES = new Spec(Feather.CPU, PURPLE);
+    public static final Spec PROCEDURE = new Spec(Feather.SETTINGS, PURPLE);
+    public static final Spec SEARCH = new Spec(Feather.SEARCH, Color.web("#E06C75"));
+    public static final Spec INFO = new Spec(Feather.INFO, Color.GRAY);
+    public static final Spec OTHER = new Spec(Feather.CIRCLE, Color.GRAY);
+
+    private SidebarIcons() {}
+
+    /**
+     * Icon for a leaf of the given {@link SidebarItem} type (search results, objects).
+     */
+    public static Spec forType(String type) {
+        if (type == null) return OTHER;
+        return switch (type) {
+            case SidebarItem.TYPE_SCHEMA -> SCHEMA;
+            case SidebarItem.TYPE_TABLE -> TABLE;
+            case SidebarItem.TYPE_VIEW -> VIEW;
+            case SidebarItem.TYPE_FUNCTION -> FUNCTION;
+            case SidebarItem.TYPE_PROCEDURE -> PROCEDURE;
+            case SidebarItem.TYPE_ROOT -> DATABASE;
+            case SidebarItem.TYPE_COLUMN -> COLUMN;
+            case SidebarItem.TYPE_INDEX -> INDEX;
+            case SidebarItem.TYPE_CONSTRAINT -> CONSTRAINT;
+            default -> OTHER;
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package ro.fintechpro.ui.ide;
+
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Asks for the values of the placeholders found in the SQL about to run.
+ * The text "null" (any case) binds SQL NULL; everything else is sent untyped, like a quoted literal.
+ */
+public class BindParametersDialog extends Dialog<Map<String, String>> {
+
+    public BindParametersDialog(List<String> names, Map<String, String> previous) {
+        setTitle("Bind Parameters");
+        setHeaderText("Values for the statement placeholders:");
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(8);
+        grid.setPadding(new Insets(10));
+
+        Map<String, TextField> fields = new LinkedHashMap<>();
+        int row = 0;
+        for (String name : names) {
+            String prev = previous.get(name);
+            TextField field = new TextField(previous.containsKey(name) && prev == null ? "null" : prev);
+            field.setPrefColumnCount(24);
+            fields.put(name, field);
+            grid.addRow(row++, new Label(name.startsWith("$") ? name : ":" + name), field);
+        }
+
+        getDialogPane().setContent(grid);
+        getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        if (!fields.isEmpty()) {
+            TextField first = fields.values().iterator().next();
+            Platform.runLater(first::requestFocus);
+        }
+
+        setResultConverter(button -> {
+            if (button != ButtonType.OK) return null;
+            Map<String, String> values = new LinkedHashMap<>();
+            fields.forEach((name, field) -> {
+                String text = field.getText();
+                values.put(name, text == null || text.equalsIgnoreCase("null") ? null : text);
+            });
+            return values;
+        });
+    }
+}
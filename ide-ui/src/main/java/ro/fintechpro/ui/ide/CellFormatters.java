@@ -0,0 +1,91 @@
+package ro.fintechpro.ui.ide;
+
+import ro.fintechpro.core.result.ColumnarResult;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+
+/**
+ * Type-aware display text for result cells.
+ * In-memory numeric cells are formatted straight from the primitive vectors, without boxing.
+ */
+public final class CellFormatters {
+
+    public static final String NULL_TEXT = "<null>";
+    public static final String EVICTED_TEXT = "<evicted>";
+
+    private static final int MAX_TEXT = 512;
+    private static final int MAX_BYTES = 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // Fraction digits only when present, like psql
+    private static final DateTimeFormatter TIMESTAMP = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 6, true).optionalEnd()
+            .toFormatter();
+    private static final DateTimeFormatter TIMESTAMP_TZ = new DateTimeFormatterBuilder()
+            .append(TIMESTAMP)
+            .appendOffset("+HH:mm", "+00")
+            .toFormatter();
+
+    private CellFormatters() {}
+
+    public static boolean isNumeric(ColumnarResult result, int col) {
+        return switch (result.getKind(col)) {
+            case INT, LONG, DOUBLE -> true;
+            case OBJECT -> "numeric".equals(result.getColumnTypeName(col));
+            default -> false;
+        };
+    }
+
+    public static String format(ColumnarResult result, int row, int col) {
+        if (result.isInMemory(row)) {
+            // Fast paths: no boxing for primitive vectors
+            switch (result.getKind(col)) {
+                case INT -> { return result.isNull(row, col) ? NULL_TEXT : Integer.toString(result.getInt(row, col)); }
+                case LONG -> { return result.isNull(row, col) ? NULL_TEXT : Long.toString(result.getLong(row, col)); }
+                case DOUBLE -> { return result.isNull(row, col) ? NULL_TEXT : formatDouble(result.getDouble(row, col)); }
+                default -> { }
+            }
+        }
+        return formatValue(result.getValue(row, col));
+    }
+
+    public static String formatValue(Object value) {
+        if (value == ColumnarResult.EVICTED) return EVICTED_TEXT;
+        return switch (value) {
+            case null -> NULL_TEXT;
+            case String s -> s.length() > MAX_TEXT ? s.substring(0, MAX_TEXT) + "…" : s;
+            case Double d -> formatDouble(d);
+            case BigDecimal d -> d.toPlainString();
+            case Timestamp t -> TIMESTAMP.format(t.toLocalDateTime());
+            case OffsetDateTime t -> TIMESTAMP_TZ.format(t);
+            case byte[] b -> formatBytes(b);
+            default -> value.toString();
+        };
+    }
+
+    private static String formatDouble(double d) {
+        // Whole numbers without the trailing ".0", everything else as Java prints it
+        if (d == Math.rint(d) && !Double.isInfinite(d) && Math.abs(d) < 1e15) {
+            return Long.toString((long) d);
+        }
+        return Double.toString(d);
+    }
+
+    // bytea in PostgreSQL hex output style, cut after a few bytes
+    private static String formatBytes(byte[] b) {
+        int n = Math.min(b.length, MAX_BYTES);
+        StringBuilder sb = new StringBuilder(2 + n * 2 + 1);
+        sb.append("\\x");
+        for (int i = 0; i < n; i++) {
+            sb.append(HEX[(b[i] >> 4) & 0xF]).append(HEX[b[i] & 0xF]);
+        }
+        if (b.length > n) sb.append('…');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package ro.fintechpro.ui.ide;
+
+import atlantafx.base.theme.Styles;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import org.kordamp.ikonli.javafx.FontIcon;
+import ro.fintechpro.core.service.GlobalSearchService;
+import ro.fintechpro.core.service.GlobalSearchService.GlobalResult;
+import ro.fintechpro.core.service.GlobalSearchService.Outcome;
+import ro.fintechpro.core.service.LocalIndexService;
+import ro.fintechpro.core.service.SearchPipeline;
+import ro.fintechpro.ui.components.SidebarIcons;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Searches the saved indexes of every connection profile; no connection is opened.
+ * Double-click opens a result.
+ */
+public class GlobalSearchView extends VBox {
+
+    private final TextField searchField = new TextField();
+    private final Label statusLabel = new Label();
+    private final ListView<GlobalResult> list = new ListView<>();
+    private final SearchPipeline<Outcome> searchPipeline;
+    private volatile List<String> profiles = List.of(); // Read by the search thread
+    private Consumer<GlobalResult> onOpen;
+
+    public GlobalSearchView(GlobalSearchService searchService) {
+        // Searches the profiles listed when the search starts
+        this.searchPipeline = new SearchPipeline<>((query, cancelled) ->
+                searchService.search(profiles, query, LocalIndexService.MAX_RESULTS, cancelled),
+                new Outcome(null, List.of(), 0, 0, 0));
+
+        setSpacing(5);
+        setPadding(new Insets(5));
+        Label title = new Label("Search All Connections");
+        title.getStyleClass().add(Styles.TEXT_BOLD);
+        searchField.setPromptText("Search objects in every profile...");
+        searchField.getStyleClass().add(Styles.SMALL);
+        statusLabel.getStyleClass().add(Styles.TEXT_MUTED);
+        list.getStyleClass().add(Styles.DENSE);
+        VBox.setVgrow(list, Priority.ALWAYS);
+
+        list.setCellFactory(lv -> new ListCell<>() {
+            private final FontIcon icon = SidebarIcons.OTHER.create();
+
+            @Override
+            protected void updateItem(GlobalResult item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                    setGraphic(null);
+                } else {
+                    LocalIndexService.SearchResult res = item.result();
+                    String location = res.schema() + (res.parent() != null ? "." + res.parent() : "");
+                    setText(res.name() + "  (" + location + " @ " + item.profile() + ")");
+                    SidebarIcons.forType(res.type()).applyTo(icon);
+                    setGraphic(icon);
+                }
+            }
+        });
+
+        list.setOnMouseClicked(e -> {
+            GlobalResult selected = list.getSelectionModel().getSelectedItem();
+            if (e.getClickCount() == 2 && selected != null && onOpen != null) onOpen.accept(selected);
+        });
+
+        // Only the latest text is searched once typing pauses; a late result for older text is dropped
+        searchField.textProperty().addListener((obs, oldVal, newVal) ->
+                searchPipeline.submit(newVal, result -> Platform.runLater(() -> show(result))));
+
+        getChildren().addAll(title, searchField, statusLabel, list);
+    }
+
+    public void setOnOpen(Consumer<GlobalResult> listener) {
+        this.onOpen = listener;
+    }
+
+    /**
+     * The profiles to search, in the order ties are ranked.
+     */
+    public void setProfiles(List<String> profiles) {
+        this.profiles = List.copyOf(profiles);
+        statusLabel.setText(profiles.size() + " connection profiles");
+    }
+
+    public void focusSearch() {
+        searchField.requestFocus();
+        searchField.selectAll();
+    }
+
+    /**
+     * Latency of the searches run so far.
+     */
+    public SearchPipeline.LatencyStats getSearchStats() {
+        return searchPipeline.getLatencyStats();
+    }
+
+    private void show(SearchPipeline.Result<Outcome> result) {
+        if (!Objects.equals(result.query(), searchField.getText())) return;
+        if (result.query() == null || result.query().isBlank()) {
+            list.getItems().clear();
+            statusLabel.setText(profiles.size() + " connection profiles");
+            return;
+        }
+        Outcome outcome = result.results();
+        list.getItems().setAll(outcome.results());
+        statusLabel.setText(String.format("%d results from %d profiles in %.1f ms%s", outcome.results().size(),
+                outcome.profiles() - outcome.unindexed(), outcome.millis(),
+                outcome.unindexed() > 0 ? " (" + outcome.unindexed() + " never indexed)" : ""));
+    }
+}
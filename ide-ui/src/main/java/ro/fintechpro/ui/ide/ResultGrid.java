@@ -0,0 +1,166 @@
+package ro.fintechpro.ui.ide;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import ro.fintechpro.core.result.ColumnarResult;
+import ro.fintechpro.core.service.QueryExecutor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Result table backed by a {@link ColumnarResult}.
+ * - Items are a virtual {@link ResultRowList}; rows are appended as they stream in.
+ * - Cells format lazily and the text is cached per page of rows, per column.
+ * - A fixed cell size lets the row skin create cells only for the columns in view.
+ */
+public class ResultGrid extends TableView<Integer> {
+
+    private static final double ROW_HEIGHT = 24;
+    private static final int PAGE_ROWS = 128;
+    private static final int CACHED_PAGES = 512; // Column pages, ~ a few screens of a wide table
+
+    // Cells read by index, so the value they are handed never matters (see ResultCell)
+    private static final ObservableValue<Integer> NO_VALUE = new ReadOnlyObjectWrapper<>(0);
+
+    private ColumnarResult result;
+    private boolean pinned; // Whether this grid holds a pin on result
+    private ResultRowList rows = new ResultRowList();
+
+    // Row growth signalled from the fetch thread is applied at most once per FX pulse
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
+
+    private final Map<Long, String[]> formattedPages = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String[]> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    public ResultGrid() {
+        setFixedCellSize(ROW_HEIGHT);
+        setItems(rows);
+    }
+
+    public void populate(QueryExecutor.QueryResult result) {
+        if (!result.isResultSet()) {
+            clear();
+            return; // Nothing to show for UPDATEs
+        }
+        bind(result.data());
+        rowsAvailable();
+    }
+
+    /**
+     * Shows a (possibly still streaming) result. Rows become visible through {@link #rowsAvailable}.
+     */
+    public void bind(ColumnarResult result) {
+        release();
+        this.result = result;
+        result.pin(); // Its spilled rows stay on disk while shown
+        pinned = true;
+        formattedPages.clear();
+        rows = new ResultRowList();
+
+        List<TableColumn<Integer, Integer>> columns = new ArrayList<>(result.getColumnCount());
+        for (int i = 0; i < result.getColumnCount(); i++) {
+            final int colIndex = i;
+            TableColumn<Integer, Integer> col = new TableColumn<>(result.getColumnName(i));
+            col.setCellValueFactory(cd -> NO_VALUE);
+            // Every cell shares NO_VALUE and the items are a fixed index range, so a header sort would do nothing
+            col.setSortable(false);
+            col.setCellFactory(c -> new ResultCell(colIndex));
+            if (CellFormatters.isNumeric(result, i)) {
+                col.setStyle("-fx-alignment: CENTER-RIGHT;");
+            }
+            columns.add(col);
+        }
+        getColumns().setAll(columns);
+        setItems(rows);
+    }
+
+    public void clear() {
+        release();
+        result = null;
+        formattedPages.clear();
+        rows = new ResultRowList();
+        getColumns().clear();
+        setItems(rows);
+    }
+
+    /**
+     * Thread-safe. Grows the grid to whatever the bound result has published so far;
+     * bursts of calls collapse into a single list change on the FX thread.
+     */
+    public void rowsAvailable() {
+        if (updateScheduled.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                updateScheduled.set(false);
+                if (result != null) rows.growTo(result.getRowCount());
+            });
+        }
+    }
+
+    /**
+     * Lets go of the shown result, e.g. once its tab is closed: unless another grid still shows it,
+     * its spill file is deleted.
+     */
+    public void release() {
+        if (result != null && pinned) result.release();
+        pinned = false;
+    }
+
+    public ColumnarResult getResult() {
+        return result;
+    }
+
+    private String textAt(int row, int col) {
+        long key = ((long) (row / PAGE_ROWS) << 32) | col;
+        String[] page = formattedPages.get(key);
+        if (page == null) {
+            page = new String[PAGE_ROWS];
+            formattedPages.put(key, page);
+        }
+        int slot = row % PAGE_ROWS;
+        String text = page[slot];
+        if (text == null) {
+            text = CellFormatters.format(result, row, col);
+            page[slot] = text;
+        }
+        return text;
+    }
+
+    /**
+     * Reads its text by row index from the page cache instead of through a value property,
+     * so scrolling allocates nothing once a page is formatted.
+     */
+    private class ResultCell extends TableCell<Integer, Integer> {
+        private final int col;
+
+        ResultCell(int col) {
+            this.col = col;
+        }
+
+        @Override
+        protected void updateItem(Integer item, boolean empty) {
+            super.updateItem(item, empty);
+            int row = getIndex();
+            if (empty || result == null || row < 0 || row >= rows.size()) {
+                setText(null);
+                setStyle(null);
+            } else {
+                String text = textAt(row, col);
+                setText(text);
+                // Evicted rows must not pass for NULLs
+                setStyle(text == CellFormatters.EVICTED_TEXT ? "-fx-text-fill: -color-danger-fg; -fx-font-style: italic;" : null);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ro.fintechpro.ui.ide;
+
+import javafx.collections.ObservableListBase;
+
+/**
+ * Virtual item list for the result grid: item i is simply row index i.
+ * Nothing is stored per row; growing the list only fires an "added" change for the new range.
+ * A new list is used for every result instead of clearing, so no removal has to be materialized.
+ * FX thread only.
+ */
+public class ResultRowList extends ObservableListBase<Integer> {
+
+    private int size;
+
+    @Override
+    public Integer get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public void growTo(int newSize) {
+        if (newSize <= size) return;
+        int from = size;
+        size = newSize;
+        beginChange();
+        nextAdd(from, newSize);
+        endChange();
+    }
+}
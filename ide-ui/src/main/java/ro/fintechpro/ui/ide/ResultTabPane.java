@@ -0,0 +1,53 @@
+package ro.fintechpro.ui.ide;
+
+import atlantafx.base.theme.Styles;
+import javafx.collections.ListChangeListener;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import org.kordamp.ikonli.feather.Feather;
+import org.kordamp.ikonli.javafx.FontIcon;
+
+/**
+ * One tab per result set. Tabs are tagged with the console that produced them,
+ * so a new run only replaces its own console's results.
+ */
+public class ResultTabPane extends TabPane {
+
+    private static final int MAX_TABS = 32;
+
+    public ResultTabPane() {
+        getStyleClass().add(Styles.DENSE);
+        setTabClosingPolicy(TabClosingPolicy.ALL_TABS);
+
+        // However a tab goes (closed, replaced or trimmed), its spill file is deleted unless shown elsewhere
+        getTabs().addListener((ListChangeListener<Tab>) change -> {
+            while (change.next()) {
+                for (Tab t : change.getRemoved()) {
+                    if (t.getContent() instanceof ResultGrid grid) grid.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes the tabs left behind by the previous run of this owner.
+     */
+    public void clearOwner(String ownerId) {
+        getTabs().removeIf(t -> ownerId.equals(t.getUserData()));
+    }
+
+    public void addResult(String ownerId, String title, ResultGrid grid) {
+        boolean firstOfOwner = getTabs().stream().noneMatch(t -> ownerId.equals(t.getUserData()));
+
+        Tab tab = new Tab(title, grid);
+        tab.setGraphic(new FontIcon(Feather.GRID));
+        tab.setUserData(ownerId);
+        getTabs().add(tab);
+
+        // Oldest results go first
+        while (getTabs().size() > MAX_TABS) {
+            getTabs().remove(0);
+        }
+        if (firstOfOwner) getSelectionModel().select(tab);
+    }
+}
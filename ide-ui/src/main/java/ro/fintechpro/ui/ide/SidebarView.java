@@ -8,16 +8,23 @@ import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color; // Import Color
 import org.kordamp.ikonli.feather.Feather;
 import org.kordamp.ikonli.javafx.FontIcon;
 import ro.fintechpro.core.model.SidebarItem;
 import ro.fintechpro.core.service.LocalIndexService;
 import ro.fintechpro.core.service.MetadataService;
-import ro.fintechpro.core.spi.SidebarPlugin;
+import ro.fintechpro.core.service.SearchPipeline;
+import ro.fintechpro.core.spi.SidebarPluginHost;
+import ro.fintechpro.ui.components.IconTreeItem;
+import ro.fintechpro.ui.components.LazyTreeItem;
+import ro.fintechpro.ui.components.SidebarIcons;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.function.Consumer;
 
 public class SidebarView extends VBox {
@@ -25,11 +32,13 @@ public class SidebarView extends VBox {
     private final TreeView<SidebarItem> treeView;
     private final TreeItem<SidebarItem> rootItem;
     private final TextField searchField;
-    private final List<SidebarPlugin> plugins;
+    private final SidebarPluginHost plugins;
     private final List<TreeItem<SidebarItem>> originalStructure = new ArrayList<>();
     private Consumer<SidebarItem> onItemOpen;
+    private Consumer<SidebarItem> onFindUsages;
+    private SearchPipeline<List<LocalIndexService.SearchResult>> searchPipeline;
 
-    public SidebarView(List<SidebarPlugin> plugins) {
+    public SidebarView(SidebarPluginHost plugins) {
         this.plugins = plugins;
 
         this.setSpacing(5);
@@ -60,12 +69,8 @@ public class SidebarView extends VBox {
         searchField.getStyleClass().add(Styles.SMALL);
 
         // --- 3. Tree ---
-        FontIcon dbIcon = new FontIcon(Feather.DATABASE);
-        // FIX: Use setIconColor instead of setStyle
-        dbIcon.setIconColor(Color.web("#E06C75")); // Red/Pink
-
         SidebarItem rootData = new SidebarItem("Database", SidebarItem.TYPE_ROOT, null, null);
-        rootItem = new TreeItem<>(rootData, dbIcon);
+        rootItem = new IconTreeItem(rootData, SidebarIcons.DATABASE);
         rootItem.setExpanded(true);
 
         treeView = new TreeView<>(rootItem);
@@ -73,8 +78,10 @@ public class SidebarView extends VBox {
         treeView.getStyleClass().add(Styles.DENSE);
         VBox.setVgrow(treeView, Priority.ALWAYS);
 
-        // Cell Factory
+        // Cell Factory: each (recycled) cell owns one icon node and repaints it from the item's shared spec
         treeView.setCellFactory(tv -> new TreeCell<>() {
+            private final FontIcon icon = SidebarIcons.OTHER.create();
+
             @Override
             protected void updateItem(SidebarItem item, boolean empty) {
                 super.updateItem(item, empty);
@@ -83,7 +90,12 @@ public class SidebarView extends VBox {
                     setGraphic(null);
                 } else {
                     setText(item.label());
-                    setGraphic(getTreeItem().getGraphic());
+                    if (getTreeItem() instanceof IconTreeItem iconItem) {
+                        iconItem.getIcon().applyTo(icon);
+                        setGraphic(icon);
+                    } else {
+                        setGraphic(getTreeItem().getGraphic());
+                    }
 
                     if (getTreeItem().getParent() == rootItem) {
                         getStyleClass().add(Styles.TEXT_BOLD);
@@ -104,93 +116,153 @@ public class SidebarView extends VBox {
             }
         });
 
+        // Context Menu: only tables, views and columns have usages
+        MenuItem findUsagesItem = new MenuItem("Find Usages", new FontIcon(Feather.LINK));
+        findUsagesItem.setOnAction(e -> {
+            TreeItem<SidebarItem> selected = treeView.getSelectionModel().getSelectedItem();
+            if (selected != null && selected.getValue() != null && onFindUsages != null) {
+                onFindUsages.accept(selected.getValue());
+            }
+        });
+        ContextMenu contextMenu = new ContextMenu(findUsagesItem);
+        contextMenu.setOnShowing(e -> {
+            TreeItem<SidebarItem> selected = treeView.getSelectionModel().getSelectedItem();
+            findUsagesItem.setDisable(selected == null || !hasUsages(selected.getValue()));
+        });
+        treeView.setContextMenu(contextMenu);
+
         this.getChildren().addAll(header, searchField, treeView);
     }
 
+    private static boolean hasUsages(SidebarItem item) {
+        if (item == null || item.schema() == null || item.name() == null) return false;
+        if (SidebarItem.TYPE_COLUMN.equals(item.type())) return item.child() != null;
+        return item.child() == null
+                && (SidebarItem.TYPE_TABLE.equals(item.type()) || SidebarItem.TYPE_VIEW.equals(item.type()));
+    }
+
     public void setOnItemOpen(Consumer<SidebarItem> listener) {
         this.onItemOpen = listener;
     }
 
-    public void populate(MetadataService metaService) {
-        Platform.runLater(() -> {
-            rootItem.getChildren().clear();
-            originalStructure.clear();
+    public void setOnFindUsages(Consumer<SidebarItem> listener) {
+        this.onFindUsages = listener;
+    }
 
+    /**
+     * Builds the schema nodes off the FX thread; their folders and objects are only
+     * materialized when expanded (see {@link LazyTreeItem}).
+     */
+    public void populate(MetadataService metaService) {
+        Thread.ofVirtual().name("sidebar-populate").start(() -> {
             try {
-                List<String> schemas = metaService.getSchemas();
-
-                for (String schema : schemas) {
-                    FontIcon schemaIcon = new FontIcon(Feather.LAYERS);
-                    // FIX: Use setIconColor for Schemas (Gold)
-                    schemaIcon.setIconColor(Color.web("#E5C07B"));
+                List<TreeItem<SidebarItem>> schemaItems = new ArrayList<>();
+                for (String schema : metaService.getSchemas()) {
+                    schemaItems.add(createSchemaItem(schema, metaService));
+                }
+                Platform.runLater(() -> {
+                    originalStructure.clear();
+                    originalStructure.addAll(schemaItems);
+                    rootItem.getChildren().setAll(originalStructure);
+                });
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
 
-                    SidebarItem schemaData = new SidebarItem(schema, SidebarItem.TYPE_SCHEMA, schema, null);
-                    TreeItem<SidebarItem> schemaItem = new TreeItem<>(schemaData, schemaIcon);
+    /**
+     * Rebuilds only the nodes of the given schemas (adding or removing them as needed),
+     * leaving the rest of the tree and its expansion state alone.
+     */
+    public void patchSchemas(Set<String> changed, MetadataService metaService) {
+        if (changed.isEmpty()) return;
+        Platform.runLater(() -> {
+            try {
+                Map<String, TreeItem<SidebarItem>> current = new HashMap<>();
+                for (TreeItem<SidebarItem> item : originalStructure) {
+                    current.put(item.getValue().schema(), item);
+                }
 
-                    for (SidebarPlugin plugin : plugins) {
-                        TreeItem<SidebarItem> pluginNode = plugin.createNode(schema, metaService);
-                        if (pluginNode != null) {
-                            schemaItem.getChildren().add(pluginNode);
-                        }
+                List<TreeItem<SidebarItem>> patched = new ArrayList<>();
+                for (String schema : metaService.getSchemas()) {
+                    TreeItem<SidebarItem> existing = current.get(schema);
+                    if (existing != null && !changed.contains(schema)) {
+                        patched.add(existing);
+                    } else {
+                        TreeItem<SidebarItem> rebuilt = createSchemaItem(schema, metaService);
+                        if (existing != null) rebuilt.setExpanded(existing.isExpanded());
+                        patched.add(rebuilt);
                     }
-                    originalStructure.add(schemaItem);
                 }
-                rootItem.getChildren().setAll(originalStructure);
+                originalStructure.clear();
+                originalStructure.addAll(patched);
 
+                // Search results stay on screen until the query is cleared
+                String query = searchField.getText();
+                if (query == null || query.trim().isEmpty()) {
+                    rootItem.getChildren().setAll(originalStructure);
+                }
             } catch (Exception e) {
                 e.printStackTrace();
             }
         });
     }
 
+    private TreeItem<SidebarItem> createSchemaItem(String schema, MetadataService metaService) {
+        SidebarItem schemaData = new SidebarItem(schema, SidebarItem.TYPE_SCHEMA, schema, null);
+        // Plugin folders are created on first expand, all plugins in parallel
+        return new LazyTreeItem(schemaData, SidebarIcons.SCHEMA,
+                () -> plugins.createNodes(schema, metaService).join());
+    }
+
+    /**
+     * Searches run through a {@link SearchPipeline}: typing is debounced, queries run off the FX thread,
+     * and only the latest query's results are applied, in one update of the tree.
+     */
     public void setupSearch(LocalIndexService indexService) {
-        searchField.textProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal == null || newVal.trim().isEmpty()) {
-                rootItem.getChildren().setAll(originalStructure);
-                return;
-            }
+        if (searchPipeline != null) return;
+        searchPipeline = new SearchPipeline<>(
+                (query, cancelled) -> indexService.search(query, LocalIndexService.MAX_RESULTS, cancelled), List.of());
+        searchField.textProperty().addListener((obs, oldVal, newVal) ->
+                searchPipeline.submit(newVal, result -> Platform.runLater(() -> showResults(result))));
+    }
 
-            List<LocalIndexService.SearchResult> results = indexService.search(newVal);
-            rootItem.getChildren().clear();
-
-            if (results.isEmpty()) {
-                FontIcon infoIcon = new FontIcon(Feather.INFO);
-                infoIcon.setIconColor(Color.GRAY);
-                rootItem.getChildren().add(new TreeItem<>(new SidebarItem("No results", "INFO", null, null), infoIcon));
-            } else {
-                FontIcon searchIcon = new FontIcon(Feather.SEARCH);
-                searchIcon.setIconColor(Color.web("#E06C75"));
-                TreeItem<SidebarItem> searchRoot = new TreeItem<>(new SidebarItem("Results", "ROOT", null, null), searchIcon);
-                searchRoot.setExpanded(true);
-
-                for (var res : results) {
-                    FontIcon icon;
-                    // FIX: Use setIconColor for Search Results
-                    switch (res.type()) {
-                        case "TABLE" -> {
-                            icon = new FontIcon(Feather.LAYOUT);
-                            icon.setIconColor(Color.web("#5263e3")); // Blue
-                        }
-                        case "FUNCTION" -> {
-                            icon = new FontIcon(Feather.PLAY_CIRCLE);
-                            icon.setIconColor(Color.web("#C678DD")); // Purple
-                        }
-                        case "PROCEDURE" -> {
-                            icon = new FontIcon(Feather.CPU);
-                            icon.setIconColor(Color.web("#C678DD")); // Purple
-                        }
-                        default -> {
-                            icon = new FontIcon(Feather.CIRCLE);
-                            icon.setIconColor(Color.GRAY);
-                        }
-                    }
+    /**
+     * Latency of the explorer searches run so far.
+     */
+    public SearchPipeline.LatencyStats getSearchStats() {
+        return searchPipeline != null ? searchPipeline.getLatencyStats() : new SearchPipeline.LatencyStats(0, 0, 0, 0, 0);
+    }
 
-                    SidebarItem itemData = new SidebarItem(res.schema() + "." + res.name(), res.type(), res.schema(), res.name());
-                    searchRoot.getChildren().add(new TreeItem<>(itemData, icon));
-                }
-                rootItem.getChildren().add(searchRoot);
-            }
-        });
+    private void showResults(SearchPipeline.Result<List<LocalIndexService.SearchResult>> result) {
+        // A result can still arrive just after the text changed again
+        if (!Objects.equals(result.query(), searchField.getText())) return;
+
+        String query = result.query();
+        if (query == null || query.trim().isEmpty()) {
+            rootItem.getChildren().setAll(originalStructure);
+            return;
+        }
+
+        if (result.results().isEmpty()) {
+            rootItem.getChildren().setAll(List.of(new IconTreeItem(new SidebarItem("No results", "INFO", null, null), SidebarIcons.INFO)));
+            return;
+        }
+
+        // Build the whole result subtree detached, then swap it in with one change event
+        List<TreeItem<SidebarItem>> items = new ArrayList<>(result.results().size());
+        for (var res : result.results()) {
+            // Columns, indexes and constraints keep their kind, and their table as the name
+            SidebarItem itemData = res.parent() != null
+                    ? new SidebarItem(res.schema() + "." + res.parent() + "." + res.name(), res.type(), res.schema(), res.parent(), res.name())
+                    : new SidebarItem(res.schema() + "." + res.name(), res.type(), res.schema(), res.name());
+            items.add(new IconTreeItem(itemData, SidebarIcons.forType(res.type())));
+        }
+        TreeItem<SidebarItem> searchRoot = new IconTreeItem(new SidebarItem("Results", "ROOT", null, null), SidebarIcons.SEARCH);
+        searchRoot.getChildren().setAll(items);
+        searchRoot.setExpanded(true);
+        rootItem.getChildren().setAll(List.of(searchRoot));
     }
 
     private void collapseAll() {
@@ -99,9 +99,11 @@ public class SqlAutocompletion {
         List<String> cols = new ArrayList<>();
         try {
             // 1. Check if 'parentName' is a real table in default schema (public)
+            // Served from the table details cache, so this is cheap on every keystroke
             var tables = metaService.getTables("public"); // Default assumption
-            if (tables.stream().anyMatch(t -> t.name().equalsIgnoreCase(parentName))) {
-                metaService.getColumns("public", parentName).forEach(c -> cols.add(c.name()));
+            var match = tables.stream().filter(t -> t.name().equalsIgnoreCase(parentName)).findFirst();
+            if (match.isPresent()) {
+                metaService.getColumns("public", match.get().name()).forEach(c -> cols.add(c.name()));
                 return cols;
             }
 
@@ -2,32 +2,70 @@
 package ro.fintechpro.ui.ide;
 
 import atlantafx.base.theme.Styles;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
+import javafx.util.Duration;
 import org.fxmisc.flowless.VirtualizedScrollPane;
 import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.LineNumberFactory;
 import org.kordamp.ikonli.feather.Feather;
 import org.kordamp.ikonli.javafx.FontIcon;
 import ro.fintechpro.core.db.DataSourceManager;
+import ro.fintechpro.core.script.SqlParameters;
+import ro.fintechpro.core.service.ConsoleSession;
+import ro.fintechpro.core.service.ExecutionHandle;
 import ro.fintechpro.core.service.MetadataService;
 import ro.fintechpro.core.service.WorkspaceService;
 
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.function.Consumer;
 
 public class SqlConsoleTab extends Tab {
 
+    /**
+     * Starts the SQL for this console and returns its handle (or null if nothing was started).
+     */
+    public interface ExecuteAction {
+        ExecutionHandle execute(SqlConsoleTab console, String sql);
+    }
+
     private final String consoleId;
     private final CodeArea codeArea = new CodeArea();
     private final ComboBox<String> connectionSelector = new ComboBox<>();
+    private final Spinner<Integer> timeoutSpinner = new Spinner<>(0, 86_400, 0, 5);
+    private final Button runBtn = new Button("Run", new FontIcon(Feather.PLAY));
+    private final Button stopBtn = new Button("Stop", new FontIcon(Feather.SQUARE));
+    private final ToggleButton cacheBtn = new ToggleButton("Cache", new FontIcon(Feather.ARCHIVE));
+    private final Label executionLabel = new Label();
+    private final Timeline executionTicker;
+
+    // Pinned session: one connection for the life of the tab, committed by hand
+    private static final long IDLE_IN_TRANSACTION_WARN_MILLIS = 60_000;
+    private final ToggleButton pinBtn = new ToggleButton("Pin Session", new FontIcon(Feather.LINK));
+    private final Button commitBtn = new Button("Commit", new FontIcon(Feather.CHECK));
+    private final Button rollbackBtn = new Button("Rollback", new FontIcon(Feather.ROTATE_CCW));
+    private final Label sessionLabel = new Label();
+    private final Timeline sessionTicker;
+    private volatile ConsoleSession session;
 
-    private final Consumer<String> executeAction;
+    private final ExecuteAction executeAction;
     private final MetadataService metaService; // Required for Autocompletion
+    private ExecutionHandle currentExecution;
+
+    // Placeholder values: the ones bound to the current run, and everything entered so far (as defaults)
+    private Map<String, String> parameterValues = Map.of();
+    private final Map<String, String> rememberedValues = new HashMap<>();
 
     /**
      * @param state The saved state of the console (ID, name, content).
@@ -35,13 +73,18 @@ public class SqlConsoleTab extends Tab {
      * @param metaService The service used to fetch table/column names for Autocompletion.
      */
     public SqlConsoleTab(WorkspaceService.ConsoleState state,
-                         Consumer<String> executeAction,
+                         ExecuteAction executeAction,
                          MetadataService metaService) {
         super(state.name());
         this.consoleId = state.id();
         this.executeAction = executeAction;
         this.metaService = metaService;
         this.setClosable(true);
+        // Don't leave a runaway statement holding a backend after its console is gone
+        setOnClosed(e -> {
+            if (currentExecution != null) currentExecution.cancel();
+            closeSession();
+        });
 
         // --- 1. Tab Graphic (Icon) ---
         FontIcon tabIcon = new FontIcon(Feather.TERMINAL);
@@ -62,12 +105,41 @@ public class SqlConsoleTab extends Tab {
         contextMenu.getItems().addAll(renameItem, new SeparatorMenuItem(), closeItem);
         setContextMenu(contextMenu);
 
-        // --- 3. Toolbar (Execute, Connection) ---
-        Button runBtn = new Button("Run", new FontIcon(Feather.PLAY));
+        // --- 3. Toolbar (Execute, Stop, Connection, Timeout) ---
         runBtn.getStyleClass().add(Styles.SUCCESS);
         runBtn.setOnAction(e -> runQuery());
         runBtn.setTooltip(new Tooltip("Execute Query (Ctrl+Enter)"));
 
+        stopBtn.getStyleClass().add(Styles.DANGER);
+        stopBtn.setOnAction(e -> stopQuery());
+        stopBtn.setTooltip(new Tooltip("Cancel the running statement"));
+        stopBtn.setDisable(true);
+
+        timeoutSpinner.setEditable(true);
+        timeoutSpinner.setPrefWidth(80);
+        timeoutSpinner.setTooltip(new Tooltip("Statement timeout in seconds (0 = none)"));
+
+        executionLabel.getStyleClass().add(Styles.TEXT_MUTED);
+        executionTicker = new Timeline(new KeyFrame(Duration.millis(250), e -> updateExecutionLabel()));
+        executionTicker.setCycleCount(Animation.INDEFINITE);
+
+        cacheBtn.setTooltip(new Tooltip("Answer repeated read-only queries from the local result cache"));
+
+        // Session controls
+        pinBtn.setTooltip(new Tooltip("Keep one connection for this console (manual commit)"));
+        pinBtn.setOnAction(e -> {
+            if (pinBtn.isSelected()) openSession();
+            else closeSession();
+        });
+        commitBtn.getStyleClass().add(Styles.SUCCESS);
+        commitBtn.setOnAction(e -> endTransaction(true));
+        rollbackBtn.getStyleClass().add(Styles.DANGER);
+        rollbackBtn.setOnAction(e -> endTransaction(false));
+        commitBtn.setDisable(true);
+        rollbackBtn.setDisable(true);
+        sessionTicker = new Timeline(new KeyFrame(Duration.seconds(1), e -> updateSessionLabel()));
+        sessionTicker.setCycleCount(Animation.INDEFINITE);
+
         // Connection Selector
         connectionSelector.setPrefWidth(150);
         connectionSelector.getItems().addAll(DataSourceManager.getInstance().getProfiles().keySet());
@@ -77,7 +149,11 @@ public class SqlConsoleTab extends Tab {
             connectionSelector.getSelectionModel().selectFirst();
         }
 
-        ToolBar toolbar = new ToolBar(runBtn, new Separator(), new Label("Connection:"), connectionSelector);
+        ToolBar toolbar = new ToolBar(runBtn, stopBtn, new Separator(),
+                new Label("Connection:"), connectionSelector,
+                new Label("Timeout (s):"), timeoutSpinner, cacheBtn,
+                new Separator(), pinBtn, commitBtn, rollbackBtn, sessionLabel,
+                new Separator(), executionLabel);
 
         // --- 4. Code Editor Setup ---
         codeArea.setParagraphGraphicFactory(LineNumberFactory.get(codeArea));
@@ -124,15 +200,183 @@ public class SqlConsoleTab extends Tab {
     }
 
     private void runQuery() {
+        if (currentExecution != null && currentExecution.isRunning()) return;
+
         String sql = codeArea.getSelectedText();
         // If nothing selected, run everything
         if (sql == null || sql.trim().isEmpty()) sql = codeArea.getText();
 
         if (!sql.trim().isEmpty()) {
-            executeAction.accept(sql);
+            // :name / $1 placeholders run as prepared statements; ask for their values first
+            List<String> names = SqlParameters.names(sql);
+            if (names.isEmpty()) {
+                parameterValues = Map.of();
+            } else {
+                Optional<Map<String, String>> values = new BindParametersDialog(names, rememberedValues).showAndWait();
+                if (values.isEmpty()) return;
+                parameterValues = values.get();
+                rememberedValues.putAll(parameterValues);
+            }
+
+            ExecutionHandle handle = executeAction.execute(this, sql);
+            if (handle == null) return;
+
+            currentExecution = handle;
+            runBtn.setDisable(true);
+            stopBtn.setDisable(false);
+            executionTicker.play();
+            handle.getCompletion().whenComplete((r, e) -> Platform.runLater(() -> {
+                if (currentExecution != handle) return;
+                executionTicker.stop();
+                updateExecutionLabel();
+                runBtn.setDisable(false);
+                stopBtn.setDisable(true);
+            }));
+        }
+    }
+
+    private void stopQuery() {
+        if (currentExecution != null) {
+            currentExecution.cancel();
+            executionLabel.setText("Cancelling...");
+        }
+    }
+
+    private void updateExecutionLabel() {
+        ExecutionHandle h = currentExecution;
+        if (h == null) return;
+        String state = switch (h.getState()) {
+            case RUNNING -> h.isCancelRequested() ? "Cancelling" : "Running";
+            case COMPLETED -> h.isCacheHit() ? "Cached" : "Done";
+            case CANCELLED -> "Cancelled";
+            case FAILED -> "Failed";
+        };
+        String text = String.format("%s · %.1f s · %,d rows",
+                state, h.getElapsedMillis() / 1000.0, h.getRowsFetched());
+        if (h.getStatementCount() > 1) {
+            text += String.format(" · statement %,d/%,d", h.getStatementsDone(), h.getStatementCount());
+        }
+        executionLabel.setText(text);
+    }
+
+    // --- Pinned session ---
+
+    private void openSession() {
+        String profile = connectionSelector.getValue();
+        if (profile == null) {
+            pinBtn.setSelected(false);
+            return;
+        }
+        pinBtn.setDisable(true);
+        connectionSelector.setDisable(true);
+        sessionLabel.setText("Connecting...");
+        Thread.ofVirtual().name("session-open").start(() -> {
+            try {
+                ConsoleSession opened = ConsoleSession.open(profile);
+                Platform.runLater(() -> {
+                    if (getTabPane() == null) { // Closed while connecting
+                        opened.close();
+                        return;
+                    }
+                    session = opened;
+                    pinBtn.setDisable(false);
+                    commitBtn.setDisable(false);
+                    rollbackBtn.setDisable(false);
+                    sessionTicker.play();
+                    updateSessionLabel();
+                });
+            } catch (SQLException e) {
+                e.printStackTrace();
+                Platform.runLater(() -> {
+                    pinBtn.setSelected(false);
+                    pinBtn.setDisable(false);
+                    connectionSelector.setDisable(false);
+                    sessionLabel.setText("Pin failed: " + e.getMessage());
+                });
+            }
+        });
+    }
+
+    private void closeSession() {
+        ConsoleSession s = session;
+        session = null;
+        sessionTicker.stop();
+        pinBtn.setSelected(false);
+        commitBtn.setDisable(true);
+        rollbackBtn.setDisable(true);
+        connectionSelector.setDisable(false);
+        sessionLabel.setText("");
+        sessionLabel.getStyleClass().remove(Styles.WARNING);
+        // Rolls back whatever was left open
+        if (s != null) Thread.ofVirtual().name("session-close").start(s::close);
+    }
+
+    private void endTransaction(boolean commit) {
+        ConsoleSession s = session;
+        if (s == null) return;
+        commitBtn.setDisable(true);
+        rollbackBtn.setDisable(true);
+        Thread.ofVirtual().name(commit ? "session-commit" : "session-rollback").start(() -> {
+            String outcome;
+            try {
+                if (commit) s.commit();
+                else s.rollback();
+                outcome = commit ? "Committed" : "Rolled back";
+            } catch (SQLException e) {
+                e.printStackTrace();
+                outcome = (commit ? "Commit" : "Rollback") + " failed: " + e.getMessage();
+            }
+            String text = outcome;
+            Platform.runLater(() -> {
+                if (session != s) return;
+                commitBtn.setDisable(false);
+                rollbackBtn.setDisable(false);
+                updateSessionLabel();
+                executionLabel.setText(text);
+            });
+        });
+    }
+
+    private void updateSessionLabel() {
+        ConsoleSession s = session;
+        if (s == null) return;
+        boolean warn = false;
+        String text;
+        if (s.isTransactionFailed()) {
+            text = "Transaction aborted - roll back";
+            warn = true;
+        } else if (s.isInTransaction()) {
+            long idle = s.getIdleMillis();
+            text = idle >= 1000 ? String.format("In transaction · idle %d s", idle / 1000) : "In transaction";
+            warn = idle >= IDLE_IN_TRANSACTION_WARN_MILLIS;
+        } else {
+            text = "Pinned";
+        }
+        sessionLabel.setText(text);
+        if (warn && !sessionLabel.getStyleClass().contains(Styles.WARNING)) {
+            sessionLabel.getStyleClass().add(Styles.WARNING);
+        } else if (!warn) {
+            sessionLabel.getStyleClass().remove(Styles.WARNING);
         }
     }
 
+    /**
+     * The pinned session, or null when each run borrows a pooled connection.
+     */
+    public ConsoleSession getSession() { return session; }
+
+    /**
+     * Values for the placeholders of the run being started (empty when it has none).
+     */
+    public Map<String, String> getParameterValues() { return parameterValues; }
+
+    public boolean isResultCacheEnabled() { return cacheBtn.isSelected(); }
+
+    public int getStatementTimeoutSeconds() {
+        Integer value = timeoutSpinner.getValue();
+        return value == null ? 0 : value;
+    }
+
     /**
      * captures the current state for persistence.
      */
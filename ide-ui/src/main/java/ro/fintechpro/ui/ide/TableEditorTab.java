@@ -12,6 +12,7 @@ import org.kordamp.ikonli.feather.Feather;
 import org.kordamp.ikonli.javafx.FontIcon;
 import ro.fintechpro.core.service.MetadataService;
 import ro.fintechpro.core.service.MetadataService.ColumnInfo;
+import ro.fintechpro.core.service.MetadataService.ConstraintInfo;
 import ro.fintechpro.core.service.MetadataService.IndexInfo;
 import ro.fintechpro.core.service.QueryExecutor;
 
@@ -24,6 +25,7 @@ public class TableEditorTab extends Tab {
 
     private final TableView<ColumnInfo> columnsTable = new TableView<>();
     private final TableView<IndexInfo> indexesTable = new TableView<>();
+    private final TableView<ConstraintInfo> constraintsTable = new TableView<>();
 
     public TableEditorTab(String schema, String table, MetadataService metaService, QueryExecutor queryExecutor) {
         this.schema = schema;
@@ -35,7 +37,7 @@ public class TableEditorTab extends Tab {
         setGraphic(new FontIcon(Feather.LAYOUT));
 
         TabPane detailsPane = new TabPane();
-        detailsPane.getTabs().addAll(createColumnsTab(), createIndexesTab());
+        detailsPane.getTabs().addAll(createColumnsTab(), createIndexesTab(), createConstraintsTab());
 
         setContent(detailsPane);
         refreshData();
@@ -88,7 +90,10 @@ public class TableEditorTab extends Tab {
         TableColumn<IndexInfo, Boolean> uniqCol = new TableColumn<>("Unique");
         uniqCol.setCellValueFactory(p -> new SimpleBooleanProperty(p.getValue().isUnique()));
 
-        indexesTable.getColumns().addAll(nameCol, uniqCol);
+        TableColumn<IndexInfo, String> defCol = new TableColumn<>("Definition");
+        defCol.setCellValueFactory(p -> new SimpleStringProperty(p.getValue().definition()));
+
+        indexesTable.getColumns().addAll(nameCol, uniqCol, defCol);
         indexesTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
 
         Button dropBtn = new Button("Drop Index", new FontIcon(Feather.TRASH));
@@ -102,14 +107,41 @@ public class TableEditorTab extends Tab {
         return tab;
     }
 
+    private Tab createConstraintsTab() {
+        Tab tab = new Tab("Constraints");
+        tab.setClosable(false);
+
+        TableColumn<ConstraintInfo, String> nameCol = new TableColumn<>("Name");
+        nameCol.setCellValueFactory(p -> new SimpleStringProperty(p.getValue().name()));
+
+        TableColumn<ConstraintInfo, String> typeCol = new TableColumn<>("Type");
+        typeCol.setCellValueFactory(p -> new SimpleStringProperty(switch (p.getValue().type()) {
+            case 'p' -> "PRIMARY KEY";
+            case 'u' -> "UNIQUE";
+            case 'f' -> "FOREIGN KEY";
+            case 'c' -> "CHECK";
+            case 'x' -> "EXCLUDE";
+            default -> String.valueOf(p.getValue().type());
+        }));
+
+        TableColumn<ConstraintInfo, String> defCol = new TableColumn<>("Definition");
+        defCol.setCellValueFactory(p -> new SimpleStringProperty(p.getValue().definition()));
+
+        constraintsTable.getColumns().addAll(nameCol, typeCol, defCol);
+        constraintsTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        tab.setContent(constraintsTable);
+        return tab;
+    }
+
     private void refreshData() {
         new Thread(() -> {
             try {
-                var cols = metaService.getColumns(schema, table);
-                var idxs = metaService.getIndexes(schema, table);
+                // One cached lookup; the whole schema is fetched in bulk on a miss
+                var details = metaService.getTableDetails(schema, table);
                 Platform.runLater(() -> {
-                    columnsTable.getItems().setAll(cols);
-                    indexesTable.getItems().setAll(idxs);
+                    columnsTable.getItems().setAll(details.columns());
+                    indexesTable.getItems().setAll(details.indexes());
+                    constraintsTable.getItems().setAll(details.constraints());
                 });
             } catch (Exception e) { e.printStackTrace(); }
         }).start();
@@ -145,6 +177,7 @@ public class TableEditorTab extends Tab {
         new Thread(() -> {
             try {
                 queryExecutor.execute(sql);
+                metaService.invalidateTableDetails(schema);
                 Platform.runLater(() -> {
                     refreshData(); // Refresh UI
                     new Alert(Alert.AlertType.INFORMATION, "Success").show();
@@ -0,0 +1,76 @@
+package ro.fintechpro.ui.ide;
+
+import atlantafx.base.theme.Styles;
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import org.kordamp.ikonli.javafx.FontIcon;
+import ro.fintechpro.core.model.SidebarItem;
+import ro.fintechpro.core.service.SourceIndexService.Match;
+import ro.fintechpro.core.service.SourceIndexService.Usage;
+import ro.fintechpro.ui.components.SidebarIcons;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Results of "Find Usages": the views and routines using a table or column. Double-click opens one.
+ */
+public class UsagesView extends VBox {
+
+    private final Label header = new Label("No search yet");
+    private final ListView<Usage> list = new ListView<>();
+    private Consumer<SidebarItem> onOpen;
+
+    public UsagesView() {
+        setSpacing(5);
+        setPadding(new Insets(5));
+        header.getStyleClass().add(Styles.TEXT_BOLD);
+        list.getStyleClass().add(Styles.DENSE);
+        VBox.setVgrow(list, Priority.ALWAYS);
+
+        list.setCellFactory(lv -> new ListCell<>() {
+            private final FontIcon icon = SidebarIcons.OTHER.create();
+
+            @Override
+            protected void updateItem(Usage usage, boolean empty) {
+                super.updateItem(usage, empty);
+                if (empty || usage == null) {
+                    setText(null);
+                    setGraphic(null);
+                } else {
+                    setText(usage.schema() + "." + usage.name()
+                            + (usage.match() == Match.DEPENDENCY ? "  (dependency)" : "  (mentioned in source)"));
+                    SidebarIcons.forType(usage.type()).applyTo(icon);
+                    setGraphic(icon);
+                }
+            }
+        });
+
+        list.setOnMouseClicked(e -> {
+            Usage selected = list.getSelectionModel().getSelectedItem();
+            if (e.getClickCount() == 2 && selected != null && onOpen != null) {
+                onOpen.accept(new SidebarItem(selected.name(), selected.type(), selected.schema(), selected.name()));
+            }
+        });
+
+        getChildren().addAll(header, list);
+    }
+
+    public void setOnOpen(Consumer<SidebarItem> listener) {
+        this.onOpen = listener;
+    }
+
+    public void showSearching(String target) {
+        header.setText("Finding usages of " + target + "...");
+        list.getItems().clear();
+    }
+
+    public void show(String target, List<Usage> usages) {
+        header.setText(usages.size() + " usage" + (usages.size() == 1 ? "" : "s") + " of " + target);
+        list.getItems().setAll(usages);
+    }
+}
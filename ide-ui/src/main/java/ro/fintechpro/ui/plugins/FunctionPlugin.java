@@ -3,47 +3,63 @@ package ro.fintechpro.ui.plugins;
 
 import javafx.scene.control.Tab;
 import javafx.scene.control.TreeItem;
-import javafx.scene.paint.Color;
-import org.kordamp.ikonli.feather.Feather;
-import org.kordamp.ikonli.javafx.FontIcon;
+import ro.fintechpro.core.model.DatabaseCache;
+import ro.fintechpro.core.model.DatabaseCache.SchemaCache;
 import ro.fintechpro.core.model.SidebarItem;
 import ro.fintechpro.core.service.LocalIndexService.SearchResult;
 import ro.fintechpro.core.service.MetadataService;
 import ro.fintechpro.core.service.QueryExecutor;
-import ro.fintechpro.core.spi.SidebarPlugin;
+import ro.fintechpro.core.spi.AsyncSidebarPlugin;
+import ro.fintechpro.ui.components.IconTreeItem;
+import ro.fintechpro.ui.components.LazyTreeItem;
+import ro.fintechpro.ui.components.SidebarIcons;
 import ro.fintechpro.ui.ide.RoutineEditorTab;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
-public class FunctionPlugin implements SidebarPlugin {
+public class FunctionPlugin implements AsyncSidebarPlugin {
 
     @Override
-    public TreeItem<SidebarItem> createNode(String schema, MetadataService metaService) {
-        try {
-            var funcs = metaService.getFunctions(schema);
-            if (funcs.isEmpty()) return null;
+    public CompletableFuture<Map<String, TreeItem<SidebarItem>>> createNodes(DatabaseCache snapshot, Collection<String> schemas,
+                                                                            MetadataService metaService, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, TreeItem<SidebarItem>> nodes = new LinkedHashMap<>();
+            for (String schema : schemas) {
+                List<String> funcs = functionsOf(snapshot, schema);
+                if (funcs.isEmpty()) continue;
 
-            FontIcon rootIcon = new FontIcon(Feather.BOX);
-            rootIcon.setIconColor(Color.web("#C678DD")); // Purple
-
-            SidebarItem rootData = new SidebarItem("Functions", SidebarItem.TYPE_FOLDER, schema, null);
-            TreeItem<SidebarItem> root = new TreeItem<>(rootData, rootIcon);
-
-            for (String f : funcs) {
-                FontIcon icon = new FontIcon(Feather.PLAY_CIRCLE);
-                icon.setIconColor(Color.web("#C678DD")); // FIX: Apply color to item icon
-
-                SidebarItem itemData = new SidebarItem(f, SidebarItem.TYPE_FUNCTION, schema, f);
-                root.getChildren().add(new TreeItem<>(itemData, icon));
+                SidebarItem rootData = new SidebarItem("Functions", SidebarItem.TYPE_FOLDER, schema, null);
+                nodes.put(schema, new LazyTreeItem(rootData, SidebarIcons.FUNCTIONS, () -> {
+                    List<TreeItem<SidebarItem>> items = new ArrayList<>(funcs.size());
+                    for (String f : funcs) {
+                        SidebarItem itemData = new SidebarItem(f, SidebarItem.TYPE_FUNCTION, schema, f);
+                        items.add(new IconTreeItem(itemData, SidebarIcons.FUNCTION));
+                    }
+                    return items;
+                }));
             }
-            return root;
-        } catch (Exception e) { return null; }
+            return nodes;
+        }, executor);
     }
 
     @Override
-    public List<SearchResult> getIndexItems(String schema, MetadataService metaService) {
-        return new ArrayList<>();
+    public CompletableFuture<List<SearchResult>> getIndexItems(DatabaseCache snapshot, Collection<String> schemas,
+                                                               MetadataService metaService, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<SearchResult> results = new ArrayList<>();
+            for (String schema : schemas) {
+                for (String f : functionsOf(snapshot, schema)) {
+                    results.add(new SearchResult(f, SidebarItem.TYPE_FUNCTION, schema, null));
+                }
+            }
+            return results;
+        }, executor);
     }
 
     @Override
@@ -53,4 +69,9 @@ public class FunctionPlugin implements SidebarPlugin {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    private static List<String> functionsOf(DatabaseCache snapshot, String schema) {
+        SchemaCache sc = snapshot.schemas().get(schema);
+        return sc != null && sc.functions() != null ? sc.functions() : List.of();
+    }
+}
@@ -3,59 +3,63 @@ package ro.fintechpro.ui.plugins;
 
 import javafx.scene.control.Tab;
 import javafx.scene.control.TreeItem;
-import javafx.scene.paint.Color;
-import org.kordamp.ikonli.feather.Feather;
-import org.kordamp.ikonli.javafx.FontIcon;
+import ro.fintechpro.core.model.DatabaseCache;
+import ro.fintechpro.core.model.DatabaseCache.SchemaCache;
 import ro.fintechpro.core.model.SidebarItem;
 import ro.fintechpro.core.service.LocalIndexService.SearchResult;
 import ro.fintechpro.core.service.MetadataService;
 import ro.fintechpro.core.service.QueryExecutor;
-import ro.fintechpro.core.spi.SidebarPlugin;
+import ro.fintechpro.core.spi.AsyncSidebarPlugin;
+import ro.fintechpro.ui.components.IconTreeItem;
+import ro.fintechpro.ui.components.LazyTreeItem;
+import ro.fintechpro.ui.components.SidebarIcons;
 import ro.fintechpro.ui.ide.RoutineEditorTab;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
-public class ProcedurePlugin implements SidebarPlugin {
+public class ProcedurePlugin implements AsyncSidebarPlugin {
 
     @Override
-    public TreeItem<SidebarItem> createNode(String schema, MetadataService metaService) {
-        try {
-            var procs = metaService.getProcedures(schema);
-            if (procs.isEmpty()) return null;
+    public CompletableFuture<Map<String, TreeItem<SidebarItem>>> createNodes(DatabaseCache snapshot, Collection<String> schemas,
+                                                                            MetadataService metaService, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, TreeItem<SidebarItem>> nodes = new LinkedHashMap<>();
+            for (String schema : schemas) {
+                List<String> procs = proceduresOf(snapshot, schema);
+                if (procs.isEmpty()) continue;
 
-            // Root: CPU Icon
-            FontIcon rootIcon = new FontIcon(Feather.CPU);
-            rootIcon.setIconColor(Color.web("#C678DD")); // Purple
-
-            SidebarItem rootData = new SidebarItem("Procedures", SidebarItem.TYPE_FOLDER, schema, null);
-            TreeItem<SidebarItem> root = new TreeItem<>(rootData, rootIcon);
-
-            for (String p : procs) {
-                // Item: Settings Icon
-                FontIcon icon = new FontIcon(Feather.SETTINGS);
-                icon.setIconColor(Color.web("#C678DD")); // FIX: Apply color to item icon
-
-                SidebarItem itemData = new SidebarItem(p, SidebarItem.TYPE_PROCEDURE, schema, p);
-                root.getChildren().add(new TreeItem<>(itemData, icon));
+                SidebarItem rootData = new SidebarItem("Procedures", SidebarItem.TYPE_FOLDER, schema, null);
+                nodes.put(schema, new LazyTreeItem(rootData, SidebarIcons.PROCEDURES, () -> {
+                    List<TreeItem<SidebarItem>> items = new ArrayList<>(procs.size());
+                    for (String p : procs) {
+                        SidebarItem itemData = new SidebarItem(p, SidebarItem.TYPE_PROCEDURE, schema, p);
+                        items.add(new IconTreeItem(itemData, SidebarIcons.PROCEDURE));
+                    }
+                    return items;
+                }));
             }
-            return root;
-        } catch (Exception e) {
-            return null;
-        }
+            return nodes;
+        }, executor);
     }
 
     @Override
-    public List<SearchResult> getIndexItems(String schema, MetadataService metaService) {
-        List<SearchResult> results = new ArrayList<>();
-        try {
-            for (String p : metaService.getProcedures(schema)) {
-                results.add(new SearchResult(p, "PROCEDURE", schema, null));
+    public CompletableFuture<List<SearchResult>> getIndexItems(DatabaseCache snapshot, Collection<String> schemas,
+                                                               MetadataService metaService, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<SearchResult> results = new ArrayList<>();
+            for (String schema : schemas) {
+                for (String p : proceduresOf(snapshot, schema)) {
+                    results.add(new SearchResult(p, SidebarItem.TYPE_PROCEDURE, schema, null));
+                }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return results;
+            return results;
+        }, executor);
     }
 
     @Override
@@ -65,4 +69,9 @@ public class ProcedurePlugin implements SidebarPlugin {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    private static List<String> proceduresOf(DatabaseCache snapshot, String schema) {
+        SchemaCache sc = snapshot.schemas().get(schema);
+        return sc != null && sc.procedures() != null ? sc.procedures() : List.of();
+    }
+}
@@ -3,56 +3,96 @@ package ro.fintechpro.ui.plugins;
 
 import javafx.scene.control.Tab;
 import javafx.scene.control.TreeItem;
-import javafx.scene.paint.Color;
-import org.kordamp.ikonli.feather.Feather;
-import org.kordamp.ikonli.javafx.FontIcon;
+import ro.fintechpro.core.model.DatabaseCache;
+import ro.fintechpro.core.model.DatabaseCache.SchemaCache;
+import ro.fintechpro.core.model.DatabaseCache.TableCache;
 import ro.fintechpro.core.model.SidebarItem;
 import ro.fintechpro.core.service.LocalIndexService.SearchResult;
 import ro.fintechpro.core.service.MetadataService;
 import ro.fintechpro.core.service.QueryExecutor;
-import ro.fintechpro.core.spi.SidebarPlugin;
+import ro.fintechpro.core.spi.AsyncSidebarPlugin;
+import ro.fintechpro.ui.components.IconTreeItem;
+import ro.fintechpro.ui.components.LazyTreeItem;
+import ro.fintechpro.ui.components.SidebarIcons;
 import ro.fintechpro.ui.ide.TableEditorTab;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
-public class TablePlugin implements SidebarPlugin {
+public class TablePlugin implements AsyncSidebarPlugin {
 
     @Override
-    public TreeItem<SidebarItem> createNode(String schema, MetadataService metaService) {
-        try {
-            var tables = metaService.getTables(schema);
-            if (tables.isEmpty()) return null;
+    public CompletableFuture<Map<String, TreeItem<SidebarItem>>> createNodes(DatabaseCache snapshot, Collection<String> schemas,
+                                                                            MetadataService metaService, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, TreeItem<SidebarItem>> nodes = new LinkedHashMap<>();
+            for (String schema : schemas) {
+                List<TableCache> tables = tablesOf(snapshot, schema);
+                if (tables.isEmpty()) continue;
 
-            // Root Icon
-            FontIcon rootIcon = new FontIcon(Feather.GRID);
-            rootIcon.setIconColor(Color.web("#5263e3")); // Blue Nuance
-
-            SidebarItem rootData = new SidebarItem("Tables (" + tables.size() + ")", SidebarItem.TYPE_FOLDER, schema, null);
-            TreeItem<SidebarItem> root = new TreeItem<>(rootData, rootIcon);
-
-            for (var t : tables) {
-                // Item Icon
-                FontIcon icon = new FontIcon(Feather.LAYOUT);
-                icon.setIconColor(Color.web("#5263e3")); // FIX: Apply color to the item icon
-
-                SidebarItem itemData = new SidebarItem(t.name(), SidebarItem.TYPE_TABLE, schema, t.name());
-                root.getChildren().add(new TreeItem<>(itemData, icon));
+                SidebarItem rootData = new SidebarItem("Tables (" + tables.size() + ")", SidebarItem.TYPE_FOLDER, schema, null);
+                // Table nodes are only built when the folder is expanded
+                nodes.put(schema, new LazyTreeItem(rootData, SidebarIcons.TABLES, () -> {
+                    List<TreeItem<SidebarItem>> items = new ArrayList<>(tables.size());
+                    for (var t : tables) {
+                        SidebarItem itemData = new SidebarItem(t.name(), SidebarItem.TYPE_TABLE, schema, t.name());
+                        items.add(new IconTreeItem(itemData, SidebarIcons.TABLE));
+                    }
+                    return items;
+                }));
             }
-            return root;
-        } catch (Exception e) { return null; }
+            return nodes;
+        }, executor);
     }
 
     @Override
-    public List<SearchResult> getIndexItems(String schema, MetadataService metaService) {
-        return new ArrayList<>();
+    public CompletableFuture<List<SearchResult>> getIndexItems(DatabaseCache snapshot, Collection<String> schemas,
+                                                               MetadataService metaService, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<SearchResult> items = new ArrayList<>();
+            for (String schema : schemas) {
+                try {
+                    // Tables and views, then their columns, indexes and constraints (parented by the table),
+                    // from the three bulk catalog reads behind the schema's details
+                    var details = metaService.getSchemaDetails(schema);
+                    for (var t : tablesOf(snapshot, schema)) {
+                        String type = "VIEW".equals(t.type()) ? SidebarItem.TYPE_VIEW : SidebarItem.TYPE_TABLE;
+                        items.add(new SearchResult(t.name(), type, schema, null));
+                        var table = details.get(t.name());
+                        if (table == null) continue;
+                        for (var c : table.columns()) {
+                            items.add(new SearchResult(c.name(), SidebarItem.TYPE_COLUMN, schema, t.name()));
+                        }
+                        for (var idx : table.indexes()) {
+                            items.add(new SearchResult(idx.name(), SidebarItem.TYPE_INDEX, schema, t.name()));
+                        }
+                        for (var con : table.constraints()) {
+                            items.add(new SearchResult(con.name(), SidebarItem.TYPE_CONSTRAINT, schema, t.name()));
+                        }
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+            return items;
+        }, executor);
     }
 
     @Override
     public Tab createTab(SidebarItem item, MetadataService metaService, QueryExecutor queryExecutor) {
-        if (SidebarItem.TYPE_TABLE.equals(item.type())) {
+        if (SidebarItem.TYPE_TABLE.equals(item.type()) || SidebarItem.TYPE_VIEW.equals(item.type())) {
             return new TableEditorTab(item.schema(), item.name(), metaService, queryExecutor);
         }
         return null;
     }
-}
\ No newline at end of file
+
+    private static List<TableCache> tablesOf(DatabaseCache snapshot, String schema) {
+        SchemaCache sc = snapshot.schemas().get(schema);
+        return sc != null && sc.tables() != null ? sc.tables() : List.of();
+    }
+}